@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of broadcasting build operation notifications to listeners.
+ * Run with {@code -prof gc} to see the allocation rate per operation.
+ */
+@Fork(2)
+@Threads(4)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class BuildOperationListenerBroadcastBenchmark {
+    private static final OperationStartEvent START_EVENT = new OperationStartEvent(0);
+    private static final OperationProgressEvent PROGRESS_EVENT = new OperationProgressEvent(0, null);
+    private static final OperationFinishEvent FINISH_EVENT = new OperationFinishEvent(0, 0, null, null);
+
+    @Param({"0", "1", "8"})
+    int listenerCount;
+
+    private final AtomicLong ids = new AtomicLong();
+    private BuildOperationListener broadcaster;
+
+    @Setup
+    public void setup() {
+        DefaultBuildOperationListenerManager manager = new DefaultBuildOperationListenerManager();
+        for (int i = 0; i < listenerCount; i++) {
+            manager.addListener(new ConsumingListener());
+        }
+        broadcaster = manager.getBroadcaster();
+    }
+
+    @Benchmark
+    public void startAndFinish() {
+        BuildOperationDescriptor descriptor = BuildOperationDescriptor.displayName("operation").build(new OperationIdentifier(ids.incrementAndGet()), null);
+        broadcaster.started(descriptor, START_EVENT);
+        broadcaster.finished(descriptor, FINISH_EVENT);
+    }
+
+    @Benchmark
+    public void startProgressAndFinish() {
+        BuildOperationDescriptor descriptor = BuildOperationDescriptor.displayName("operation").build(new OperationIdentifier(ids.incrementAndGet()), null);
+        broadcaster.started(descriptor, START_EVENT);
+        broadcaster.progress(descriptor.getId(), PROGRESS_EVENT);
+        broadcaster.finished(descriptor, FINISH_EVENT);
+    }
+
+    private static class ConsumingListener implements BuildOperationListener {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            Blackhole.consumeCPU(1);
+        }
+
+        @Override
+        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+            Blackhole.consumeCPU(1);
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            Blackhole.consumeCPU(1);
+        }
+    }
+}
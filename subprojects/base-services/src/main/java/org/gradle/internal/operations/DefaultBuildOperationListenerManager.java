@@ -16,13 +16,12 @@
 
 package org.gradle.internal.operations;
 
-import com.google.common.collect.Sets;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -32,33 +31,59 @@ public class DefaultBuildOperationListenerManager implements BuildOperationListe
     // which requires atomically getting an iterator and the size.
     // Moreover, we iterate this list far more often that we mutate,
     // making a (albeit home grown) copy-on-write strategy more appealing.
-    private List<ProgressShieldingBuildOperationListener> listeners = Collections.emptyList();
+    private List<RegisteredListener> listeners = Collections.emptyList();
     private final Lock listenersLock = new ReentrantLock();
 
+    // Tracks which listeners have seen the start, but not yet the finish, of each running operation.
+    // This is shared by all listeners so that only a single entry is recorded per operation.
+    private final Map<OperationIdentifier, ActiveOperation> activeOperations = new ConcurrentHashMap<OperationIdentifier, ActiveOperation>();
+
     private final BuildOperationListener broadcaster = new BuildOperationListener() {
         @Override
         public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
-            List<? extends BuildOperationListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
-            //noinspection ForLoopReplaceableByForEach
+            List<RegisteredListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
+            if (listeners.isEmpty()) {
+                return;
+            }
+            ActiveOperation activeOperation = new ActiveOperation(listeners);
+            activeOperations.put(buildOperation.getId(), activeOperation);
             for (int i = 0; i < listeners.size(); ++i) {
-                listeners.get(i).started(buildOperation, startEvent);
+                activeOperation.activeCount = i + 1;
+                listeners.get(i).delegate.started(buildOperation, startEvent);
             }
         }
 
         @Override
         public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
-            List<? extends BuildOperationListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
-            //noinspection ForLoopReplaceableByForEach
-            for (int i = 0; i < listeners.size(); ++i) {
-                listeners.get(i).progress(operationIdentifier, progressEvent);
+            ActiveOperation activeOperation = activeOperations.get(operationIdentifier);
+            if (activeOperation == null) {
+                return;
+            }
+            List<RegisteredListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
+            List<RegisteredListener> startedListeners = activeOperation.listeners;
+            int activeCount = activeOperation.activeCount;
+            for (int i = 0; i < activeCount; ++i) {
+                RegisteredListener listener = startedListeners.get(i);
+                if (startedListeners == listeners || listeners.contains(listener)) {
+                    listener.delegate.progress(operationIdentifier, progressEvent);
+                }
             }
         }
 
         @Override
         public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
-            List<? extends BuildOperationListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
-            for (int i = listeners.size() - 1; i >= 0; --i) {
-                listeners.get(i).finished(buildOperation, finishEvent);
+            List<RegisteredListener> listeners = DefaultBuildOperationListenerManager.this.listeners;
+            ActiveOperation activeOperation = activeOperations.get(buildOperation.getId());
+            try {
+                for (int i = listeners.size() - 1; i >= 0; --i) {
+                    RegisteredListener listener = listeners.get(i);
+                    if (activeOperation != null) {
+                        activeOperation.finishing(listener, i, listeners);
+                    }
+                    listener.delegate.finished(buildOperation, finishEvent);
+                }
+            } finally {
+                activeOperations.remove(buildOperation.getId());
             }
         }
     };
@@ -67,8 +92,8 @@ public class DefaultBuildOperationListenerManager implements BuildOperationListe
     public void addListener(BuildOperationListener listener) {
         listenersLock.lock();
         try {
-            List<ProgressShieldingBuildOperationListener> listeners = new ArrayList<ProgressShieldingBuildOperationListener>(this.listeners);
-            listeners.add(new ProgressShieldingBuildOperationListener(listener));
+            List<RegisteredListener> listeners = new ArrayList<RegisteredListener>(this.listeners);
+            listeners.add(new RegisteredListener(listener));
             this.listeners = listeners;
         } finally {
             listenersLock.unlock();
@@ -79,8 +104,8 @@ public class DefaultBuildOperationListenerManager implements BuildOperationListe
     public void removeListener(BuildOperationListener listener) {
         listenersLock.lock();
         try {
-            List<ProgressShieldingBuildOperationListener> listeners = new ArrayList<ProgressShieldingBuildOperationListener>(this.listeners);
-            ListIterator<ProgressShieldingBuildOperationListener> listIterator = listeners.listIterator();
+            List<RegisteredListener> listeners = new ArrayList<RegisteredListener>(this.listeners);
+            ListIterator<RegisteredListener> listIterator = listeners.listIterator();
             while (listIterator.hasNext()) {
                 if (listIterator.next().delegate.equals(listener)) {
                     listIterator.remove();
@@ -98,34 +123,34 @@ public class DefaultBuildOperationListenerManager implements BuildOperationListe
     }
 
     /**
-     * Prevents sending progress notifications to a given listener outside of start/finished for that operation.
+     * Wraps a listener, so that a listener that is registered multiple times is treated as a different listener each time.
      */
-    private static class ProgressShieldingBuildOperationListener implements BuildOperationListener {
-
-        private final Set<OperationIdentifier> active = Sets.newConcurrentHashSet();
+    private static class RegisteredListener {
         private final BuildOperationListener delegate;
 
-        private ProgressShieldingBuildOperationListener(BuildOperationListener delegate) {
+        private RegisteredListener(BuildOperationListener delegate) {
             this.delegate = delegate;
         }
+    }
 
-        @Override
-        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
-            active.add(buildOperation.getId());
-            delegate.started(buildOperation, startEvent);
-        }
+    /**
+     * Prevents sending progress notifications to a given listener outside of start/finished for that operation.
+     * The listeners that have been notified of the start are a prefix of the listeners registered when the operation started.
+     */
+    private static class ActiveOperation {
+        private final List<RegisteredListener> listeners;
+        private volatile int activeCount;
 
-        @Override
-        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
-            if (active.contains(operationIdentifier)) {
-                delegate.progress(operationIdentifier, progressEvent);
-            }
+        private ActiveOperation(List<RegisteredListener> listeners) {
+            this.listeners = listeners;
         }
 
-        @Override
-        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
-            active.remove(buildOperation.getId());
-            delegate.finished(buildOperation, finishEvent);
+        void finishing(RegisteredListener listener, int index, List<RegisteredListener> currentListeners) {
+            // Listeners are finished in reverse registration order, so everything from this listener on has finished
+            int startedIndex = currentListeners == listeners ? index : listeners.indexOf(listener);
+            if (startedIndex >= 0 && startedIndex < activeCount) {
+                activeCount = startedIndex;
+            }
         }
     }
 }
@@ -47,6 +47,8 @@ public class DefaultResourceLockCoordinationService implements ResourceLockCoord
                     switch (disposition) {
                         case RETRY:
                             resourceLockState.releaseLocks();
+                            // The action may have released locks that other threads are waiting for before deciding to retry
+                            maybeNotifyStateChange(resourceLockState);
                             try {
                                 lock.wait();
                             } catch (InterruptedException e) {
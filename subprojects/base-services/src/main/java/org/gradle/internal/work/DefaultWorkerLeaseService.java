@@ -60,6 +60,7 @@ public class DefaultWorkerLeaseService implements WorkerLeaseService, Parallelis
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultWorkerLeaseService.class);
 
     private volatile int maxWorkerCount;
+    private volatile int workerLeaseLimit = Integer.MAX_VALUE;
     private int counter = 1;
     private final Root root = new Root();
 
@@ -90,6 +91,25 @@ public class DefaultWorkerLeaseService implements WorkerLeaseService, Parallelis
         return maxWorkerCount;
     }
 
+    public int getWorkerLeaseLimit() {
+        return workerLeaseLimit;
+    }
+
+    /**
+     * Grants no more than the given number of worker leases, even if the max worker count is higher.
+     * Leases that are already held are not revoked, so the limit takes effect as running work completes.
+     */
+    public void setWorkerLeaseLimit(int workerLeaseLimit) {
+        if (workerLeaseLimit < 1) {
+            throw new IllegalArgumentException("Not a valid worker lease limit: " + workerLeaseLimit);
+        }
+        int previousLimit = this.workerLeaseLimit;
+        this.workerLeaseLimit = workerLeaseLimit;
+        if (workerLeaseLimit > previousLimit) {
+            coordinationService.notifyStateChange();
+        }
+    }
+
     @Override
     public WorkerLease getCurrentWorkerLease() {
         Collection<? extends ResourceLock> operations = workerLeaseLockRegistry.getResourceLocksByCurrentThread();
@@ -342,7 +362,7 @@ public class DefaultWorkerLeaseService implements WorkerLeaseService, Parallelis
 
         @Override
         public boolean grantLease() {
-            if (leasesInUse >= maxWorkerCount) {
+            if (leasesInUse >= Math.min(maxWorkerCount, workerLeaseLimit)) {
                 return false;
             }
             leasesInUse++;
@@ -122,6 +122,54 @@ class DefaultBuildOperationListenerManagerTest extends Specification {
         ]
     }
 
+    def "does not forward progress notifications to listeners added or removed while operation is running"() {
+        given:
+        def listener1 = recordingListener("1")
+        def listener2 = recordingListener("2")
+        manager.addListener(listener1)
+        manager.addListener(listener2)
+
+        when:
+        broadcaster.started(op1, startEvent)
+        manager.addListener(recordingListener("3"))
+        broadcaster.progress(id1, progressEvent)
+        manager.removeListener(listener1)
+        broadcaster.progress(id1, progressEvent)
+        manager.addListener(listener1)
+        broadcaster.progress(id1, progressEvent)
+        broadcaster.finished(op1, finishEvent)
+
+        then:
+        events == [
+            start("1", id1),
+            start("2", id1),
+            progress("1", id1),
+            progress("2", id1),
+            progress("2", id1),
+            progress("2", id1),
+            finished("1", id1),
+            finished("3", id1),
+            finished("2", id1)
+        ]
+    }
+
+    def "does not forward progress notifications after operation has finished"() {
+        given:
+        manager.addListener(recordingListener("1"))
+
+        when:
+        broadcaster.progress(id1, progressEvent)
+        broadcaster.started(op1, startEvent)
+        broadcaster.finished(op1, finishEvent)
+        broadcaster.progress(id1, progressEvent)
+
+        then:
+        events == [
+            start("1", id1),
+            finished("1", id1)
+        ]
+    }
+
     BuildOperationListener recordingListener(String label) {
         new RecordingListener(label)
     }
@@ -108,6 +108,57 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         lock2.lockedState
     }
 
+    def "wakes up waiting lock actions when a retrying action releases locks"() {
+        def lock1 = resourceLock("lock1", false)
+        def lock2 = resourceLock("lock2", true)
+        def waiting = false
+        def released = false
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        if (lock1.tryLock() && lock2.tryLock()) {
+                            instant.acquired
+                            return FINISHED
+                        }
+                        if (!waiting) {
+                            waiting = true
+                            instant.waiting
+                        }
+                        return RETRY
+                    }
+                })
+            }
+
+            thread.blockUntil.waiting
+
+            start {
+                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        if (!released) {
+                            released = true
+                            lock2.lockedState = false
+                            resourceLockState.registerUnlocked(lock2)
+                            return RETRY
+                        }
+                        return FINISHED
+                    }
+                })
+            }
+
+            thread.blockUntil.acquired
+            coordinationService.notifyStateChange()
+        }
+
+        then:
+        lock1.lockedState
+        lock2.lockedState
+    }
+
     def "can nest multiple calls to withStateLock"() {
         def lock = [
             resourceLock("lock1"),
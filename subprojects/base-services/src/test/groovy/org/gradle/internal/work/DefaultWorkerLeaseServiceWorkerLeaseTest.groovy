@@ -357,7 +357,51 @@ class DefaultWorkerLeaseServiceWorkerLeaseTest extends ConcurrentSpec {
         noExceptionThrown()
     }
 
-    WorkerLeaseService workerLeaseService(int maxWorkers) {
+    def "operation start blocks when worker lease limit is reached and resumes when the limit is raised"() {
+        def registry = workerLeaseService(2)
+        registry.workerLeaseLimit = 1
+
+        when:
+        async {
+            start {
+                def cl = registry.getWorkerLease().start()
+                instant.worker1
+                thread.blockUntil.worker2
+                cl.leaseFinish()
+            }
+            start {
+                thread.blockUntil.worker1
+                def cl = registry.getWorkerLease().start()
+                instant.worker2
+                cl.leaseFinish()
+            }
+            thread.blockUntil.worker1
+            thread.block()
+            instant.limitRaised
+            registry.workerLeaseLimit = 2
+        }
+
+        then:
+        instant.worker2 > instant.limitRaised
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "worker lease limit must be positive"() {
+        def registry = workerLeaseService(2)
+
+        when:
+        registry.workerLeaseLimit = 0
+
+        then:
+        thrown(IllegalArgumentException)
+
+        cleanup:
+        registry?.stop()
+    }
+
+    DefaultWorkerLeaseService workerLeaseService(int maxWorkers) {
         return new DefaultWorkerLeaseService(coordinationService, new ParallelismConfigurationManagerFixture(true, maxWorkers))
     }
 }
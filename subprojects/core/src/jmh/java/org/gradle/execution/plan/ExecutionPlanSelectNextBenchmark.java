@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.initialization.DefaultParallelismConfigurationManager;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration;
+import org.gradle.internal.event.DefaultListenerManager;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how long it takes the workers of a parallel build to select and complete every node of a wide plan,
+ * where the nodes themselves do no work. The plan is a seeded random graph of tasks spread over many projects,
+ * so most of the time is spent in {@link DefaultExecutionPlan#selectNext} scanning nodes whose dependencies are not yet complete.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class ExecutionPlanSelectNextBenchmark {
+    private static final Action<Node> NO_OP = new Action<Node>() {
+        @Override
+        public void execute(Node node) {
+        }
+    };
+
+    @Param({"10", "100"})
+    int projectCount;
+
+    @Param({"20"})
+    int tasksPerProject;
+
+    @Param({"1", "8"})
+    int workerCount;
+
+    private File rootDir;
+    private GradleInternal gradle;
+    private List<Task> tasks;
+    private DefaultResourceLockCoordinationService coordinationService;
+    private DefaultWorkerLeaseService workerLeaseService;
+    private DefaultExecutorFactory executorFactory;
+    private DefaultPlanExecutor planExecutor;
+    private DefaultExecutionPlan executionPlan;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        rootDir = Files.createTempDirectory("execution-plan").toFile();
+        Project root = ProjectBuilder.builder().withProjectDir(rootDir).build();
+        gradle = ((ProjectInternal) root).getGradle();
+
+        Random random = new Random(42);
+        tasks = new ArrayList<Task>();
+        for (int p = 0; p < projectCount; p++) {
+            Project project = ProjectBuilder.builder().withName("p" + p).withParent(root).build();
+            for (int t = 0; t < tasksPerProject; t++) {
+                Task task = project.task("t" + t);
+                // Only depend on tasks created earlier, so that the graph has no cycles
+                for (int d = random.nextInt(4); d > 0 && !tasks.isEmpty(); d--) {
+                    task.dependsOn(tasks.get(random.nextInt(tasks.size())));
+                }
+                tasks.add(task);
+            }
+        }
+
+        DefaultParallelismConfiguration parallelismConfiguration = new DefaultParallelismConfiguration(true, workerCount);
+        DefaultParallelismConfigurationManager parallelismConfigurationManager = new DefaultParallelismConfigurationManager(new DefaultListenerManager());
+        parallelismConfigurationManager.setParallelismConfiguration(parallelismConfiguration);
+        coordinationService = new DefaultResourceLockCoordinationService();
+        workerLeaseService = new DefaultWorkerLeaseService(coordinationService, parallelismConfigurationManager);
+        executorFactory = new DefaultExecutorFactory();
+        planExecutor = new DefaultPlanExecutor(parallelismConfiguration, executorFactory, workerLeaseService, new DefaultBuildCancellationToken(), coordinationService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        executorFactory.stop();
+        workerLeaseService.stop();
+        FileUtils.forceDelete(rootDir);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupPlan() {
+        // All tasks belong to this build, so no included build task graph is required
+        TaskNodeFactory taskNodeFactory = new TaskNodeFactory(gradle, null);
+        executionPlan = new DefaultExecutionPlan(workerLeaseService, gradle, taskNodeFactory, new TaskDependencyResolver(Collections.<DependencyResolver>singletonList(new TaskNodeDependencyResolver(taskNodeFactory))));
+        executionPlan.addEntryTasks(tasks);
+        executionPlan.determineExecutionPlan();
+    }
+
+    @Benchmark
+    public List<Throwable> executeWidePlan() {
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        workerLeaseService.withLocks(Collections.singleton(workerLeaseService.getWorkerLease()), new Runnable() {
+            @Override
+            public void run() {
+                planExecutor.process(executionPlan, failures, NO_OP);
+            }
+        });
+        return failures;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares checking candidate paths against the mutations of running nodes with a {@link PathTrie}
+ * to comparing them with every path of every running node.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PathTrieBenchmark {
+    private static final char SEPARATOR = '/';
+
+    @Param({"8", "64"})
+    int runningNodeCount;
+
+    @Param({"4"})
+    int pathsPerNode;
+
+    private final List<String> runningPaths = new ArrayList<String>();
+    private final List<String> candidatePaths = new ArrayList<String>();
+    private PathTrie trie;
+
+    @Setup
+    public void setup() {
+        trie = new PathTrie(SEPARATOR);
+        for (int node = 0; node < runningNodeCount; node++) {
+            for (int path = 0; path < pathsPerNode; path++) {
+                String runningPath = outputPath(node, path);
+                runningPaths.add(runningPath);
+                trie.add(runningPath);
+            }
+        }
+        // Outputs of a project that is not running, so that every running path needs to be checked
+        for (int path = 0; path < pathsPerNode; path++) {
+            candidatePaths.add(outputPath(runningNodeCount, path));
+        }
+    }
+
+    private static String outputPath(int node, int path) {
+        return "/home/user/workspace/project" + node + "/build/outputs/output" + path;
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return trie.hasOverlap(candidatePaths);
+    }
+
+    @Benchmark
+    public boolean pairwise() {
+        for (String candidatePath : candidatePaths) {
+            for (String runningPath : runningPaths) {
+                if (isOverlapping(candidatePath, runningPath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOverlapping(String firstPath, String secondPath) {
+        if (firstPath.equals(secondPath)) {
+            return true;
+        }
+        if (firstPath.length() == secondPath.length()) {
+            return false;
+        }
+        String shorter = firstPath.length() < secondPath.length() ? firstPath : secondPath;
+        String longer = firstPath.length() < secondPath.length() ? secondPath : firstPath;
+        return longer.startsWith(shorter) && longer.charAt(shorter.length()) == SEPARATOR;
+    }
+}
@@ -35,13 +35,18 @@ import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.zip.ZipEntry;
 
+/**
+ * Hashes the ABI of class files. Used for compile classpath normalization and by incremental Java compilation,
+ * so that both share the ABI hashes cached by the {@link ResourceSnapshotterCacheService}.
+ */
 public class AbiExtractingClasspathResourceHasher implements ResourceHasher {
     private static final Logger LOGGER = Logging.getLogger(AbiExtractingClasspathResourceHasher.class);
 
+    private final ApiClassExtractor extractor = new ApiClassExtractor(Collections.<String>emptySet());
+
     private HashCode hashClassBytes(InputStream inputStream) throws IOException {
         // Use the ABI as the hash
         byte[] classBytes = ByteStreams.toByteArray(inputStream);
-        ApiClassExtractor extractor = new ApiClassExtractor(Collections.<String>emptySet());
         ClassReader reader = new ClassReader(classBytes);
         if (extractor.shouldExtractApiClassFrom(reader)) {
             byte[] signature = extractor.extractApiClassFrom(reader);
@@ -22,6 +22,7 @@ import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecuterResult;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.execution.statistics.ThreadResourceUsage;
 import org.gradle.api.tasks.TaskExecutionException;
 import org.gradle.internal.operations.BuildOperationCategory;
 import org.gradle.internal.operations.BuildOperationContext;
@@ -60,8 +61,10 @@ public class EventFiringTaskExecuter implements TaskExecuter {
                     return TaskExecuterResult.NO_REUSED_OUTPUT;
                 }
 
+                ThreadResourceUsage startUsage = ThreadResourceUsage.current();
                 TaskExecuterResult result = delegate.execute(task, state, context);
-                operationContext.setResult(new ExecuteTaskBuildOperationResult(state, context, result.getReusedOutputOriginMetadata().orElse(null)));
+                ThreadResourceUsage resourceUsage = ThreadResourceUsage.since(startUsage);
+                operationContext.setResult(new ExecuteTaskBuildOperationResult(state, context, result.getReusedOutputOriginMetadata().orElse(null), resourceUsage));
 
                 try {
                     taskExecutionListener.afterExecute(task, state);
@@ -20,6 +20,7 @@ import org.gradle.api.internal.TaskOutputCachingState;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskOutputCachingDisabledReasonCategory;
 import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.execution.statistics.ThreadResourceUsage;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.id.UniqueId;
 
@@ -31,11 +32,13 @@ public class ExecuteTaskBuildOperationResult implements ExecuteTaskBuildOperatio
     private final TaskStateInternal taskState;
     private final TaskExecutionContext ctx;
     private final OriginMetadata originMetadata;
+    private final ThreadResourceUsage resourceUsage;
 
-    public ExecuteTaskBuildOperationResult(TaskStateInternal taskState, TaskExecutionContext ctx, @Nullable OriginMetadata originMetadata) {
+    public ExecuteTaskBuildOperationResult(TaskStateInternal taskState, TaskExecutionContext ctx, @Nullable OriginMetadata originMetadata, ThreadResourceUsage resourceUsage) {
         this.taskState = taskState;
         this.ctx = ctx;
         this.originMetadata = originMetadata;
+        this.resourceUsage = resourceUsage;
     }
 
     @Nullable
@@ -89,4 +92,16 @@ public class ExecuteTaskBuildOperationResult implements ExecuteTaskBuildOperatio
         return ctx.isTaskExecutedIncrementally();
     }
 
+    @Nullable
+    @Override
+    public Long getCpuTimeNanos() {
+        return resourceUsage.getCpuTimeNanos();
+    }
+
+    @Nullable
+    @Override
+    public Long getAllocatedBytes() {
+        return resourceUsage.getAllocatedBytes();
+    }
+
 }
@@ -129,6 +129,22 @@ public final class ExecuteTaskBuildOperationType implements BuildOperationType<E
         @NotUsedByScanPlugin("used to report incrementality to TAPI progress listeners")
         boolean isIncremental();
 
+        /**
+         * The CPU time in nanoseconds used by the thread executing the task, or null if not supported by the JVM.
+         * Does not include work performed by the task on other threads, such as worker API actions.
+         */
+        @Nullable
+        @NotUsedByScanPlugin("used to report resource usage of tasks in the build summary")
+        Long getCpuTimeNanos();
+
+        /**
+         * The memory in bytes allocated by the thread executing the task, or null if not supported by the JVM.
+         * Does not include work performed by the task on other threads, such as worker API actions.
+         */
+        @Nullable
+        @NotUsedByScanPlugin("used to report resource usage of tasks in the build summary")
+        Long getAllocatedBytes();
+
     }
 
     private ExecuteTaskBuildOperationType() {
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution.statistics;
+
+import org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the resources used by each executed task, as reported by the task execution build operations.
+ */
+public class TaskResourceUsageCollector implements BuildOperationListener {
+    private final List<TaskResourceUsage> taskUsages = new ArrayList<TaskResourceUsage>();
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        if (!(finishEvent.getResult() instanceof ExecuteTaskBuildOperationType.Result)) {
+            return;
+        }
+        ExecuteTaskBuildOperationType.Result result = (ExecuteTaskBuildOperationType.Result) finishEvent.getResult();
+        Long cpuTime = result.getCpuTimeNanos();
+        Long allocatedBytes = result.getAllocatedBytes();
+        if (cpuTime == null && allocatedBytes == null) {
+            return;
+        }
+        TaskResourceUsage usage = new TaskResourceUsage(buildOperation.getName(), cpuTime == null ? 0 : cpuTime, allocatedBytes == null ? 0 : allocatedBytes);
+        synchronized (taskUsages) {
+            taskUsages.add(usage);
+        }
+    }
+
+    /**
+     * Returns the tasks that used the most CPU time, most expensive first.
+     */
+    public List<TaskResourceUsage> getMostExpensiveTasks(int maxTasks) {
+        List<TaskResourceUsage> usages;
+        synchronized (taskUsages) {
+            usages = new ArrayList<TaskResourceUsage>(taskUsages);
+        }
+        Collections.sort(usages, new Comparator<TaskResourceUsage>() {
+            @Override
+            public int compare(TaskResourceUsage o1, TaskResourceUsage o2) {
+                int byCpuTime = Long.compare(o2.getCpuTimeNanos(), o1.getCpuTimeNanos());
+                return byCpuTime != 0 ? byCpuTime : Long.compare(o2.getAllocatedBytes(), o1.getAllocatedBytes());
+            }
+        });
+        return usages.subList(0, Math.min(maxTasks, usages.size()));
+    }
+
+    public static class TaskResourceUsage {
+        private final String taskPath;
+        private final long cpuTimeNanos;
+        private final long allocatedBytes;
+
+        public TaskResourceUsage(String taskPath, long cpuTimeNanos, long allocatedBytes) {
+            this.taskPath = taskPath;
+            this.cpuTimeNanos = cpuTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getTaskPath() {
+            return taskPath;
+        }
+
+        public long getCpuTimeNanos() {
+            return cpuTimeNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
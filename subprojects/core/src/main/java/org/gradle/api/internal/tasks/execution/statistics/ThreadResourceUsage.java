@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution.statistics;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The CPU time used and the memory allocated by the current thread, where the JVM supports measuring these.
+ */
+public class ThreadResourceUsage {
+    private static final long UNKNOWN = -1;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = isCpuTimeSupported();
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = allocationMXBean();
+
+    private final long cpuTime;
+    private final long allocatedBytes;
+
+    private ThreadResourceUsage(long cpuTime, long allocatedBytes) {
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public static ThreadResourceUsage current() {
+        long cpuTime = CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : UNKNOWN;
+        long allocatedBytes = ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : UNKNOWN;
+        return new ThreadResourceUsage(cpuTime, allocatedBytes);
+    }
+
+    /**
+     * Returns the resources used by the current thread since the given usage was measured on it.
+     */
+    public static ThreadResourceUsage since(ThreadResourceUsage start) {
+        ThreadResourceUsage end = current();
+        return new ThreadResourceUsage(difference(end.cpuTime, start.cpuTime), difference(end.allocatedBytes, start.allocatedBytes));
+    }
+
+    private static long difference(long end, long start) {
+        return end == UNKNOWN || start == UNKNOWN ? UNKNOWN : end - start;
+    }
+
+    /**
+     * The CPU time in nanoseconds, or null when not supported.
+     */
+    @Nullable
+    public Long getCpuTimeNanos() {
+        return cpuTime == UNKNOWN ? null : cpuTime;
+    }
+
+    /**
+     * The allocated memory in bytes, or null when not supported.
+     */
+    @Nullable
+    public Long getAllocatedBytes() {
+        return allocatedBytes == UNKNOWN ? null : allocatedBytes;
+    }
+
+    private static boolean isCpuTimeSupported() {
+        try {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean allocationMXBean() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean;
+                }
+            }
+        } catch (LinkageError e) {
+            // Not available on this JVM
+        }
+        return null;
+    }
+}
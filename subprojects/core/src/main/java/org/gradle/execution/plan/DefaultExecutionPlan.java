@@ -18,12 +18,15 @@ package org.gradle.execution.plan;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.gradle.api.Action;
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.CircularReferenceException;
@@ -37,8 +40,11 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskDestroyablePropertySpec;
+import org.gradle.api.internal.tasks.TaskPropertyUtils;
 import org.gradle.api.internal.tasks.execution.DefaultTaskProperties;
 import org.gradle.api.internal.tasks.execution.TaskProperties;
+import org.gradle.api.internal.tasks.properties.PropertyVisitor;
 import org.gradle.api.internal.tasks.properties.PropertyWalker;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
@@ -67,10 +73,12 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -92,11 +100,13 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private boolean continueOnFailure;
 
     private final Set<Node> runningNodes = Sets.newIdentityHashSet();
+    private final PathTrie runningMutationPaths = new PathTrie();
     private final Set<Node> filteredNodes = Sets.newIdentityHashSet();
     private final Map<Node, MutationInfo> mutations = Maps.newIdentityHashMap();
     private final Map<File, String> canonicalizedFileCache = Maps.newIdentityHashMap();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = Maps.newHashMap();
     private final Set<Node> dependenciesCompleteCache = Sets.newHashSet();
+    private final Map<Node, Node> incompleteDependencyCache = Maps.newIdentityHashMap();
     private final WorkerLeaseService workerLeaseService;
     private final GradleInternal gradle;
 
@@ -199,24 +209,24 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     }
 
     private void resolveNodesInUnknownState() {
-        List<Node> queue = Lists.newArrayList(nodesInUnknownState);
+        Deque<Node> queue = new ArrayDeque<Node>(nodesInUnknownState);
         Set<Node> visiting = Sets.newHashSet();
 
         while (!queue.isEmpty()) {
-            Node node = queue.get(0);
+            Node node = queue.getFirst();
             if (node.isInKnownState()) {
-                queue.remove(0);
+                queue.removeFirst();
                 continue;
             }
 
             if (visiting.add(node)) {
                 for (Node hardPredecessor : node.getDependencyPredecessors()) {
                     if (!visiting.contains(hardPredecessor)) {
-                        queue.add(0, hardPredecessor);
+                        queue.addFirst(hardPredecessor);
                     }
                 }
             } else {
-                queue.remove(0);
+                queue.removeFirst();
                 visiting.remove(node);
                 node.mustNotRun();
                 for (Node predecessor : node.getDependencyPredecessors()) {
@@ -240,7 +250,8 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     }
 
     public void determineExecutionPlan() {
-        List<NodeInVisitingSegment> nodeQueue = Lists.newArrayList(Iterables.transform(entryTasks, new Function<TaskNode, NodeInVisitingSegment>() {
+        // Nodes are pushed to and popped from the head of the queue, so use a linked list rather than shifting an array on every step
+        List<NodeInVisitingSegment> nodeQueue = Lists.newLinkedList(Iterables.transform(entryTasks, new Function<TaskNode, NodeInVisitingSegment>() {
             private int index;
 
             @Override
@@ -327,6 +338,95 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         }
         executionQueue.clear();
         Iterables.addAll(executionQueue, nodeMapping);
+        if (gradle.getStartParameter().isParallelProjectExecutionEnabled()) {
+            orderByLongestDependentChainFirst();
+        }
+    }
+
+    /**
+     * Orders the queue so that nodes with the longest chain of nodes that can only start after them come first,
+     * so that nodes on the critical path of the build are started first when running in parallel.
+     *
+     * <p>Nodes are only reordered within the part of the plan for a single entry task, so requested tasks still start in the order
+     * they were requested. Destroyers are never reordered. Nodes that must or should run after another node count as part of the chain of
+     * that node, so they always have a shorter chain and stay behind it. The sort is stable, so nodes on chains of the same length keep
+     * the order of the plan.</p>
+     */
+    private void orderByLongestDependentChainFirst() {
+        final Map<Node, Integer> dependentChainLengths = dependentChainLengths();
+        Comparator<Node> longestChainFirst = new Comparator<Node>() {
+            @Override
+            public int compare(Node node1, Node node2) {
+                return Ints.compare(dependentChainLengths.get(node2), dependentChainLengths.get(node1));
+            }
+        };
+        List<Node> ordered = new ArrayList<Node>(executionQueue.size());
+        List<Node> segment = new ArrayList<Node>();
+        for (Node node : executionQueue) {
+            if (isDestroyer(node)) {
+                addSorted(segment, longestChainFirst, ordered);
+                ordered.add(node);
+                continue;
+            }
+            segment.add(node);
+            if (entryTasks.contains(node)) {
+                addSorted(segment, longestChainFirst, ordered);
+            }
+        }
+        addSorted(segment, longestChainFirst, ordered);
+        executionQueue.clear();
+        executionQueue.addAll(ordered);
+    }
+
+    private Map<Node, Integer> dependentChainLengths() {
+        // Nodes that must or should run after a node can only be found from the later node, so collect them first
+        Multimap<Node, Node> orderedAfter = ArrayListMultimap.create();
+        for (Node node : executionQueue) {
+            if (node instanceof TaskNode) {
+                TaskNode taskNode = (TaskNode) node;
+                for (Node predecessor : Iterables.concat(taskNode.getMustSuccessors(), taskNode.getShouldSuccessors())) {
+                    orderedAfter.put(predecessor, node);
+                }
+            }
+        }
+        Map<Node, Integer> dependentChainLengths = Maps.newIdentityHashMap();
+        // The queue is ordered so that each node comes before the nodes that depend on it, finalize it or run after it
+        ListIterator<Node> iterator = executionQueue.listIterator(executionQueue.size());
+        while (iterator.hasPrevious()) {
+            Node node = iterator.previous();
+            int longestDependentChain = 0;
+            for (Node dependent : Iterables.concat(node.getDependencyPredecessors(), node.getFinalizers(), orderedAfter.get(node))) {
+                Integer dependentChainLength = dependentChainLengths.get(dependent);
+                if (dependentChainLength != null && dependentChainLength > longestDependentChain) {
+                    longestDependentChain = dependentChainLength;
+                }
+            }
+            dependentChainLengths.put(node, longestDependentChain + 1);
+        }
+        return dependentChainLengths;
+    }
+
+    private static void addSorted(List<Node> segment, Comparator<Node> comparator, List<Node> ordered) {
+        Collections.sort(segment, comparator);
+        ordered.addAll(segment);
+        segment.clear();
+    }
+
+    private static boolean isDestroyer(Node node) {
+        if (!(node instanceof LocalTaskNode)) {
+            return false;
+        }
+        TaskInternal task = ((LocalTaskNode) node).getTask();
+        PropertyWalker propertyWalker = ((ProjectInternal) task.getProject()).getServices().get(PropertyWalker.class);
+        final boolean[] destroyer = new boolean[1];
+        // Only looks at the declared properties, the destroyed files are resolved when the node is selected
+        TaskPropertyUtils.visitProperties(propertyWalker, task, new PropertyVisitor.Adapter() {
+            @Override
+            public void visitDestroyableProperty(TaskDestroyablePropertySpec destroyableProperty) {
+                destroyer[0] = true;
+            }
+        });
+        return destroyer[0];
     }
 
     private MutationInfo getOrCreateMutationsOf(Node node) {
@@ -498,7 +598,9 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         canonicalizedFileCache.clear();
         reachableCache.clear();
         dependenciesCompleteCache.clear();
+        incompleteDependencyCache.clear();
         runningNodes.clear();
+        runningMutationPaths.clear();
     }
 
     @Override
@@ -621,14 +723,39 @@ public class DefaultExecutionPlan implements ExecutionPlan {
             return true;
         }
 
+        // Most nodes in the queue are waiting for a dependency that is still running or queued.
+        // Remember one such dependency, so that checking the node again costs a single lookup until it completes.
+        Node incompleteDependency = incompleteDependencyCache.get(node);
+        if (incompleteDependency != null && !incompleteDependency.isComplete()) {
+            return false;
+        }
+
         boolean dependenciesComplete = node.allDependenciesComplete();
         if (dependenciesComplete) {
             dependenciesCompleteCache.add(node);
+            incompleteDependencyCache.remove(node);
+        } else {
+            incompleteDependency = firstIncompleteDependency(node);
+            if (incompleteDependency != null) {
+                incompleteDependencyCache.put(node, incompleteDependency);
+            } else {
+                incompleteDependencyCache.remove(node);
+            }
         }
 
         return dependenciesComplete;
     }
 
+    @Nullable
+    private static Node firstIncompleteDependency(Node node) {
+        for (Node dependency : node.getAllSuccessors()) {
+            if (!dependency.isComplete()) {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
     private boolean allProjectsLocked() {
         for (ResourceLock lock : projectLocks.values()) {
             if (!lock.isLocked()) {
@@ -677,20 +804,12 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     }
 
     private boolean hasNodeWithOverlappingMutations(Set<String> candidateMutationPaths) {
-        if (!candidateMutationPaths.isEmpty()) {
-            for (Node runningNode : runningNodes) {
-                MutationInfo runningMutations = mutations.get(runningNode);
-                Iterable<String> runningMutationPaths = Iterables.concat(runningMutations.outputPaths, runningMutations.destroyablePaths);
-                if (hasOverlap(candidateMutationPaths, runningMutationPaths)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return runningMutationPaths.hasOverlap(candidateMutationPaths);
     }
 
     private boolean doesDestroyNotYetConsumedOutputOfAnotherNode(Node destroyer, Set<String> destroyablePaths) {
         if (!destroyablePaths.isEmpty()) {
+            PathTrie destroyablePathTrie = PathTrie.of(destroyablePaths);
             for (MutationInfo producingNode : mutations.values()) {
                 if (!producingNode.node.isComplete()) {
                     // We don't care about producing nodes that haven't finished yet
@@ -700,7 +819,7 @@ public class DefaultExecutionPlan implements ExecutionPlan {
                     // We don't care about nodes whose output is not consumed by anyone anymore
                     continue;
                 }
-                if (!hasOverlap(destroyablePaths, producingNode.outputPaths)) {
+                if (!destroyablePathTrie.hasOverlap(producingNode.outputPaths)) {
                     // No overlap no cry
                     continue;
                 }
@@ -739,19 +858,6 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         return reachable;
     }
 
-    private static boolean hasOverlap(Iterable<String> paths1, Iterable<String> paths2) {
-        for (String path1 : paths1) {
-            for (String path2 : paths2) {
-                String overLappedPath = getOverLappedPath(path1, path2);
-                if (overLappedPath != null) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
     private static Set<String> getOutputPaths(Map<File, String> canonicalizedFileCache, TaskNode task, FileCollection outputFiles, FileCollection localStateFiles) {
         try {
             return canonicalizedPaths(canonicalizedFileCache, Iterables.concat(outputFiles, localStateFiles));
@@ -772,40 +878,21 @@ public class DefaultExecutionPlan implements ExecutionPlan {
         return String.format("A deadlock was detected while resolving the %s for task '%s'. This can be caused, for instance, by %s property causing dependency resolution.", plural, task, singular);
     }
 
-    @Nullable
-    private static String getOverLappedPath(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return firstPath;
-        }
-        if (firstPath.length() == secondPath.length()) {
-            return null;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-
-        boolean isOverlapping = longer.startsWith(shorter) && longer.charAt(shorter.length()) == File.separatorChar;
-        if (isOverlapping) {
-            return shorter;
-        } else {
-            return null;
-        }
-    }
-
     private void recordNodeStarted(Node node) {
         runningNodes.add(node);
+        MutationInfo mutations = this.mutations.get(node);
+        for (String path : Iterables.concat(mutations.outputPaths, mutations.destroyablePaths)) {
+            runningMutationPaths.add(path);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
-        runningNodes.remove(node);
         MutationInfo mutations = this.mutations.get(node);
+        if (runningNodes.remove(node)) {
+            for (String path : Iterables.concat(mutations.outputPaths, mutations.destroyablePaths)) {
+                runningMutationPaths.remove(path);
+            }
+        }
         for (Node producer : mutations.producingNodes) {
             MutationInfo producerMutations = this.mutations.get(producer);
             if (producerMutations.consumingNodes.remove(node) && canRemoveMutation(producerMutations)) {
@@ -942,10 +1029,17 @@ public class DefaultExecutionPlan implements ExecutionPlan {
 
     @Override
     public boolean hasNodesRemaining() {
-        for (Node node : executionQueue) {
+        Iterator<Node> iterator = executionQueue.iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
             if (!node.isComplete()) {
                 return true;
             }
+            if (!node.isMustNotRun()) {
+                // Skipped or aborted nodes will never be selected, so drop them rather than checking them again on every call.
+                // Nodes that must not run stay, as a finalizer may still enforce them.
+                iterator.remove();
+            }
         }
         return !runningNodes.isEmpty();
     }
@@ -205,6 +205,8 @@ public class DefaultPlanExecutor implements PlanExecutor {
                     }
                 }
             } finally {
+                // Complete the node in its own state lock action, so that the locks it releases are not taken back by the
+                // selection of the next node within the same action, and workers waiting for them are woken up
                 coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
                     @Override
                     public ResourceLockState.Disposition transform(ResourceLockState state) {
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A multiset of canonical file paths, organized by path segment, which can efficiently answer whether a path overlaps with any of the paths it contains.
+ *
+ * Two paths overlap when they are the same or one is an ancestor of the other. Paths are split at every separator, keeping empty segments,
+ * so that a file system root like {@code /} only overlaps with itself, the same as the pairwise comparison this replaces.
+ */
+class PathTrie {
+    private final char separator;
+    private final Segment root = new Segment();
+
+    PathTrie() {
+        this(File.separatorChar);
+    }
+
+    PathTrie(char separator) {
+        this.separator = separator;
+    }
+
+    public static PathTrie of(Iterable<String> paths) {
+        PathTrie trie = new PathTrie();
+        for (String path : paths) {
+            trie.add(path);
+        }
+        return trie;
+    }
+
+    public boolean isEmpty() {
+        return root.count == 0;
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.count = 0;
+        root.terminals = 0;
+    }
+
+    public void add(String path) {
+        Segment current = root;
+        current.count++;
+        int start = 0;
+        int end;
+        while ((end = nextSegmentEnd(path, start)) >= 0) {
+            String name = path.substring(start, end);
+            Segment child = current.children.get(name);
+            if (child == null) {
+                child = new Segment();
+                current.children.put(name, child);
+            }
+            current = child;
+            current.count++;
+            start = end + 1;
+        }
+        current.terminals++;
+    }
+
+    /**
+     * Removes one occurrence of the given path, which must have been added before. The trie is left unchanged when the path is not contained.
+     */
+    public void remove(String path) {
+        List<Segment> segments = Lists.newArrayList();
+        Segment current = root;
+        int start = 0;
+        int end;
+        while ((end = nextSegmentEnd(path, start)) >= 0) {
+            current = current.children.get(path.substring(start, end));
+            if (current == null) {
+                break;
+            }
+            segments.add(current);
+            start = end + 1;
+        }
+        if (current == null || current.terminals == 0) {
+            throw new IllegalStateException("Path " + path + " is not contained.");
+        }
+
+        current.terminals--;
+        root.count--;
+        Segment parent = root;
+        start = 0;
+        for (Segment segment : segments) {
+            end = nextSegmentEnd(path, start);
+            if (--segment.count == 0) {
+                parent.children.remove(path.substring(start, end));
+            }
+            parent = segment;
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Returns whether this trie contains the given path, an ancestor of it or a descendant of it.
+     */
+    public boolean hasOverlap(String path) {
+        Segment current = root;
+        int start = 0;
+        int end;
+        while ((end = nextSegmentEnd(path, start)) >= 0) {
+            if (current.terminals > 0) {
+                return true;
+            }
+            current = current.children.get(path.substring(start, end));
+            if (current == null) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return current.count > 0;
+    }
+
+    public boolean hasOverlap(Iterable<String> paths) {
+        if (isEmpty()) {
+            return false;
+        }
+        for (String path : paths) {
+            if (hasOverlap(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int nextSegmentEnd(String path, int start) {
+        if (start > path.length()) {
+            return -1;
+        }
+        int end = path.indexOf(separator, start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static class Segment {
+        private final Map<String, Segment> children = Maps.newHashMap();
+        /**
+         * The number of paths ending in this segment or below it.
+         */
+        private int count;
+        /**
+         * The number of paths ending in this segment.
+         */
+        private int terminals;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.buildevents;
+
+import org.gradle.api.internal.tasks.execution.statistics.TaskResourceUsageCollector.TaskResourceUsage;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.text.StyledTextOutput;
+import org.gradle.internal.logging.text.StyledTextOutputFactory;
+import org.gradle.internal.time.TimeFormatting;
+import org.gradle.internal.util.NumberUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TaskResourceUsageReporter {
+    private final StyledTextOutputFactory textOutputFactory;
+
+    public TaskResourceUsageReporter(StyledTextOutputFactory textOutputFactory) {
+        this.textOutputFactory = textOutputFactory;
+    }
+
+    public void buildFinished(List<TaskResourceUsage> mostExpensiveTasks) {
+        if (mostExpensiveTasks.isEmpty()) {
+            return;
+        }
+        StyledTextOutput textOutput = textOutputFactory.create(TaskResourceUsageReporter.class, LogLevel.INFO);
+        textOutput.println("Tasks using the most CPU time:");
+        for (TaskResourceUsage usage : mostExpensiveTasks) {
+            textOutput.format("  %s: %s CPU, %s allocated", usage.getTaskPath(), TimeFormatting.formatDurationVeryTerse(TimeUnit.NANOSECONDS.toMillis(usage.getCpuTimeNanos())), NumberUtil.formatBytes(usage.getAllocatedBytes()));
+            textOutput.println();
+        }
+    }
+}
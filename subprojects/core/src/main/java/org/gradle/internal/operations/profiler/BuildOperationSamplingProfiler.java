@@ -0,0 +1,332 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.profiler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+import com.google.common.io.Files;
+import org.gradle.StartParameter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the stacks of threads that are running build operations, and attributes each sample
+ * to the innermost typed build operation (e.g. a task, a transform or project configuration) running on that thread.
+ * Can be enabled for any build with `-Dorg.gradle.internal.operations.profiler=«path-base»`.
+ *
+ * Imposes no overhead when not enabled.
+ *
+ * Two files are created when the build session finishes:
+ *
+ * - «path-base»-stacks.txt: the sampled stacks in collapsed form, one line per distinct stack, with the operation as the root frame.
+ *   This is the input format of flame graph tools, and can be filtered by operation to produce per task flame graphs.
+ * - «path-base»-hotspots.txt: the operations with the most samples, along with the methods most frequently on top of the stack.
+ *
+ * Only threads that are runnable are sampled, so time spent waiting for locks or other work is not included.
+ *
+ * The «path-base» param is optional.
+ * If invoked as `-Dorg.gradle.internal.operations.profiler`, a base value of "profile" will be used.
+ */
+public class BuildOperationSamplingProfiler implements Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.profiler";
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+    private static final int MAX_STACK_DEPTH = 256;
+    private static final int HOTSPOTS_PER_OPERATION = 10;
+
+    private final String basePath;
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final ManagedScheduledExecutor sampler;
+    private final ThreadMXBean threadMXBean;
+
+    private final ConcurrentMap<Thread, RunningOperations> operationsByThread = new ConcurrentHashMap<Thread, RunningOperations>();
+    private final Map<OperationIdentifier, RunningOperations> operationsById = new ConcurrentHashMap<OperationIdentifier, RunningOperations>();
+    private final BuildOperationListener listener = new TrackingListener();
+
+    // Only accessed by the sampler thread, until it has been stopped
+    private final Map<String, Multiset<String>> stacksByOperation = new HashMap<String, Multiset<String>>();
+    private final Map<String, Multiset<String>> topFramesByOperation = new HashMap<String, Multiset<String>>();
+
+    public BuildOperationSamplingProfiler(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+
+        String basePath = startParameter.getSystemPropertiesArgs().get(SYSPROP);
+        if (basePath == null) {
+            basePath = System.getProperty(SYSPROP);
+        }
+
+        if (basePath == null || basePath.equals(Boolean.FALSE.toString())) {
+            this.basePath = null;
+            this.threadMXBean = null;
+            this.sampler = null;
+            return;
+        }
+
+        this.basePath = basePath.trim().isEmpty() || basePath.equals(Boolean.TRUE.toString()) ? "profile" : basePath;
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        buildOperationListenerManager.addListener(listener);
+        this.sampler = executorFactory.createScheduled("Build operation profiler", 1);
+        sampler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (sampler == null) {
+            return;
+        }
+        buildOperationListenerManager.removeListener(listener);
+        sampler.stop();
+        operationsByThread.clear();
+        operationsById.clear();
+
+        try {
+            writeStacks();
+            writeHotspots();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @VisibleForTesting
+    int getTrackedThreadCount() {
+        return operationsByThread.size();
+    }
+
+    @VisibleForTesting
+    void sample() {
+        List<Thread> threads = new ArrayList<Thread>();
+        List<String> operations = new ArrayList<String>();
+        for (Map.Entry<Thread, RunningOperations> entry : operationsByThread.entrySet()) {
+            String operation = entry.getValue().getAttributedOperation();
+            if (operation != null) {
+                threads.add(entry.getKey());
+                operations.add(operation);
+            }
+        }
+        if (threads.isEmpty()) {
+            return;
+        }
+
+        long[] threadIds = new long[threads.size()];
+        for (int i = 0; i < threadIds.length; i++) {
+            threadIds[i] = threads.get(i).getId();
+        }
+        // Captures all stacks at a single safepoint
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, MAX_STACK_DEPTH);
+
+        StringBuilder stack = new StringBuilder();
+        for (int i = 0; i < threadInfos.length; i++) {
+            ThreadInfo threadInfo = threadInfos[i];
+            if (threadInfo == null || threadInfo.getThreadState() != Thread.State.RUNNABLE) {
+                continue;
+            }
+            StackTraceElement[] frames = threadInfo.getStackTrace();
+            if (frames.length == 0) {
+                continue;
+            }
+            String operation = operations.get(i);
+
+            stack.setLength(0);
+            stack.append(operation.replace(';', ','));
+            for (int j = frames.length - 1; j >= 0; j--) {
+                stack.append(';').append(frames[j].getClassName()).append('.').append(frames[j].getMethodName());
+            }
+            samples(stacksByOperation, operation).add(stack.toString());
+            samples(topFramesByOperation, operation).add(frames[0].toString());
+        }
+    }
+
+    private static Multiset<String> samples(Map<String, Multiset<String>> samplesByOperation, String operation) {
+        Multiset<String> samples = samplesByOperation.get(operation);
+        if (samples == null) {
+            samples = HashMultiset.create();
+            samplesByOperation.put(operation, samples);
+        }
+        return samples;
+    }
+
+    private void writeStacks() throws IOException {
+        Writer writer = Files.asCharSink(file("-stacks.txt"), Charsets.UTF_8).openBufferedStream();
+        try {
+            for (Multiset<String> stacks : stacksByOperation.values()) {
+                for (Multiset.Entry<String> entry : stacks.entrySet()) {
+                    writer.write(entry.getElement());
+                    writer.write(' ');
+                    writer.write(String.valueOf(entry.getCount()));
+                    writer.write('\n');
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeHotspots() throws IOException {
+        List<Map.Entry<String, Multiset<String>>> operations = new ArrayList<Map.Entry<String, Multiset<String>>>(topFramesByOperation.entrySet());
+        Collections.sort(operations, new Comparator<Map.Entry<String, Multiset<String>>>() {
+            @Override
+            public int compare(Map.Entry<String, Multiset<String>> o1, Map.Entry<String, Multiset<String>> o2) {
+                return o2.getValue().size() - o1.getValue().size();
+            }
+        });
+
+        Writer writer = Files.asCharSink(file("-hotspots.txt"), Charsets.UTF_8).openBufferedStream();
+        try {
+            for (Map.Entry<String, Multiset<String>> operation : operations) {
+                Multiset<String> topFrames = operation.getValue();
+                writer.write(operation.getKey() + ": " + topFrames.size() + " samples (~" + topFrames.size() * SAMPLE_INTERVAL_MILLIS + "ms)\n");
+                Iterator<Multiset.Entry<String>> hotspots = Multisets.copyHighestCountFirst(topFrames).entrySet().iterator();
+                for (int i = 0; i < HOTSPOTS_PER_OPERATION && hotspots.hasNext(); i++) {
+                    Multiset.Entry<String> hotspot = hotspots.next();
+                    writer.write("  " + hotspot.getCount() + " " + hotspot.getElement() + "\n");
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private File file(String suffix) {
+        File file = new File(basePath + suffix).getAbsoluteFile();
+        GFileUtils.mkdirs(file.getParentFile());
+        return file;
+    }
+
+    /**
+     * The operations running on a single thread, innermost last. Discarded once the last operation has finished, so that threads which no longer run operations are not retained.
+     */
+    private static class RunningOperations {
+        private final Thread thread;
+        private final Deque<BuildOperationDescriptor> operations = new ArrayDeque<BuildOperationDescriptor>();
+        private boolean discarded;
+
+        RunningOperations(Thread thread) {
+            this.thread = thread;
+        }
+
+        /**
+         * @return false if these operations have been discarded, in which case a new instance has to be used for the thread.
+         */
+        synchronized boolean started(BuildOperationDescriptor operation) {
+            if (discarded) {
+                return false;
+            }
+            operations.addLast(operation);
+            return true;
+        }
+
+        /**
+         * @return true if no operations are left, in which case these operations have been discarded.
+         */
+        synchronized boolean finished(BuildOperationDescriptor operation) {
+            // Operations started via BuildOperationExecutor.start() may finish out of order
+            operations.removeLastOccurrence(operation);
+            discarded = operations.isEmpty();
+            return discarded;
+        }
+
+        /**
+         * Prefers operations that have details, so that samples are not spread over untyped operations like individual file visits.
+         */
+        @Nullable
+        synchronized String getAttributedOperation() {
+            Iterator<BuildOperationDescriptor> iterator = operations.descendingIterator();
+            while (iterator.hasNext()) {
+                BuildOperationDescriptor operation = iterator.next();
+                if (operation.getDetails() != null) {
+                    return operation.getDisplayName();
+                }
+            }
+            BuildOperationDescriptor innermost = operations.peekLast();
+            return innermost == null ? null : innermost.getDisplayName();
+        }
+    }
+
+    private class TrackingListener implements BuildOperationListener {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            Thread thread = Thread.currentThread();
+            while (true) {
+                RunningOperations operations = operationsByThread.get(thread);
+                if (operations == null) {
+                    operations = new RunningOperations(thread);
+                    RunningOperations existing = operationsByThread.putIfAbsent(thread, operations);
+                    if (existing != null) {
+                        operations = existing;
+                    }
+                }
+                if (operations.started(buildOperation)) {
+                    operationsById.put(buildOperation.getId(), operations);
+                    return;
+                }
+                // The last operation of this thread has just finished on another thread
+                operationsByThread.remove(thread, operations);
+            }
+        }
+
+        @Override
+        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            RunningOperations operations = operationsById.remove(buildOperation.getId());
+            if (operations != null && operations.finished(buildOperation)) {
+                operationsByThread.remove(operations.thread, operations);
+            }
+        }
+    }
+}
@@ -82,6 +82,11 @@ import static org.gradle.internal.Cast.uncheckedCast;
  * The «path-base» param is optional.
  * If invoked as `-Dorg.gradle.internal.operations.trace`, a base value of "operations" will be used.
  *
+ * Rendering the trees requires holding all operations in memory, which is expensive for large builds.
+ * This can be skipped with `-Dorg.gradle.internal.operations.trace.tree=false`, in which case only the log is written.
+ * The trees, and a «path-base»-chrome.json file that can be loaded into chrome://tracing, can then be created
+ * from the log after the build using {@link BuildOperationTraceConverter}.
+ *
  * The “trace” produced here is different to the trace produced by Gradle Profiler.
  * There, the focus is analyzing the performance profile.
  * Here, the focus is debugging/developing the information structure of build operations.
@@ -91,11 +96,13 @@ import static org.gradle.internal.Cast.uncheckedCast;
 public class BuildOperationTrace implements Stoppable {
 
     public static final String SYSPROP = "org.gradle.internal.operations.trace";
+    public static final String TREE_SYSPROP = "org.gradle.internal.operations.trace.tree";
 
     private static final byte[] NEWLINE = "\n".getBytes();
     private static final byte[] INDENT = "    ".getBytes();
 
     private final String basePath;
+    private final boolean writeTrees;
     private final OutputStream logOutputStream;
 
     private final BuildOperationListenerManager buildOperationListenerManager;
@@ -108,12 +115,10 @@ public class BuildOperationTrace implements Stoppable {
         this.listenerManager = listenerManager;
 
         Map<String, String> sysProps = startParameter.getSystemPropertiesArgs();
-        String basePath = sysProps.get(SYSPROP);
-        if (basePath == null) {
-            basePath = System.getProperty(SYSPROP);
-        }
+        String basePath = getProperty(sysProps, SYSPROP);
 
         this.basePath = basePath;
+        this.writeTrees = !Boolean.FALSE.toString().equals(getProperty(sysProps, TREE_SYSPROP));
         if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
             this.logOutputStream = null;
             return;
@@ -148,16 +153,41 @@ public class BuildOperationTrace implements Stoppable {
                     logOutputStream.close();
                 }
 
-                final List<BuildOperationRecord> roots = readLogToTreeRoots(logFile(basePath));
-                writeDetailTree(roots);
-                writeSummaryTree(roots);
+                if (writeTrees) {
+                    writeTrees(basePath);
+                }
             } catch (IOException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
             }
         }
     }
 
-    private void writeDetailTree(List<BuildOperationRecord> roots) throws IOException {
+    private static String getProperty(Map<String, String> sysProps, String name) {
+        String value = sysProps.get(name);
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the tree representations of a previously written log.
+     */
+    public static void writeTrees(String basePath) throws IOException {
+        List<BuildOperationRecord> roots = readLogToTreeRoots(logFile(basePath));
+        writeDetailTree(basePath, roots);
+        writeSummaryTree(basePath, roots);
+    }
+
+    /**
+     * Writes a previously written log in the Chrome trace event format.
+     */
+    public static void writeChromeTrace(String basePath) throws IOException {
+        List<BuildOperationRecord> roots = readLogToTreeRoots(logFile(basePath));
+        ChromeTraceWriter.write(roots, file(basePath, "-chrome.json"));
+    }
+
+    private static void writeDetailTree(String basePath, List<BuildOperationRecord> roots) throws IOException {
         try {
             String rawJson = JsonOutput.toJson(BuildOperationTree.serialize(roots));
             String prettyJson = JsonOutput.prettyPrint(rawJson);
@@ -167,7 +197,7 @@ public class BuildOperationTrace implements Stoppable {
         }
     }
 
-    private void writeSummaryTree(final List<BuildOperationRecord> roots) throws IOException {
+    private static void writeSummaryTree(String basePath, final List<BuildOperationRecord> roots) throws IOException {
         Files.asCharSink(file(basePath, "-tree.txt"), Charsets.UTF_8).writeLines(new Iterable<String>() {
             @Override
             @Nonnull
@@ -463,14 +493,17 @@ public class BuildOperationTrace implements Stoppable {
 
             @SuppressWarnings("ConstantConditions")
             private void write() {
-                String json = JsonOutput.toJson(operation.toMap());
+                // Serialize outside of the lock, so that only the copy into the buffer is serialized across threads
+                byte[] bytes = JsonOutput.toJson(operation.toMap()).getBytes(Charsets.UTF_8);
                 try {
                     synchronized (logOutputStream) {
                         if (indent) {
                             logOutputStream.write(INDENT);
                         }
-                        logOutputStream.write(json.getBytes("UTF-8"));
+                        logOutputStream.write(bytes);
                         logOutputStream.write(NEWLINE);
+                        // Flushing every event costs a write to the file per notification, but keeps the log complete
+                        // when the build process dies, which is often when the trace is needed most
                         logOutputStream.flush();
                     }
                 } catch (IOException e) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Converts a build operation log written by {@link BuildOperationTrace} into other representations, after the build has finished.
+ *
+ * Usage from the command line: {@code BuildOperationTraceConverter «path-base» [tree|chrome]...}. Writes all formats if none are given.
+ */
+public class BuildOperationTraceConverter {
+
+    public enum Format {
+        /**
+         * The «path-base»-tree.json and «path-base»-tree.txt files that are written at the end of the build when tree rendering is enabled.
+         */
+        TREE,
+
+        /**
+         * A «path-base»-chrome.json file in the Chrome trace event format, that can be loaded into chrome://tracing.
+         */
+        CHROME
+    }
+
+    private BuildOperationTraceConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * Converts the log given by the command line arguments.
+     *
+     * @return the exit code for the command line
+     */
+    static int run(String[] args, PrintStream err) throws IOException {
+        if (args.length == 0) {
+            err.println("Usage: BuildOperationTraceConverter <path-base> [tree|chrome]...");
+            return 1;
+        }
+
+        Set<Format> formats = EnumSet.noneOf(Format.class);
+        for (int i = 1; i < args.length; i++) {
+            try {
+                formats.add(Format.valueOf(args[i].toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                err.println("Unknown format '" + args[i] + "', expected 'tree' or 'chrome'.");
+                return 1;
+            }
+        }
+        convert(args[0], formats.isEmpty() ? EnumSet.allOf(Format.class) : formats);
+        return 0;
+    }
+
+    public static void convert(String basePath, Set<Format> formats) throws IOException {
+        if (formats.contains(Format.TREE)) {
+            BuildOperationTrace.writeTrees(basePath);
+        }
+        if (formats.contains(Format.CHROME)) {
+            BuildOperationTrace.writeChromeTrace(basePath);
+        }
+    }
+}
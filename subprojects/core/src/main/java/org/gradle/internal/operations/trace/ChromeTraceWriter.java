@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import groovy.json.JsonOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes build operations in the Chrome trace event format, as understood by chrome://tracing.
+ *
+ * Operations do not record the thread they ran on, so each operation is assigned to a lane that is
+ * free for its duration, preferring the lane of its parent so that nesting is shown where possible.
+ */
+class ChromeTraceWriter {
+
+    static void write(List<BuildOperationRecord> roots, File file) throws IOException {
+        List<BuildOperationRecord> records = new ArrayList<BuildOperationRecord>();
+        Deque<BuildOperationRecord> queue = new ArrayDeque<BuildOperationRecord>(roots);
+        while (!queue.isEmpty()) {
+            BuildOperationRecord record = queue.removeFirst();
+            records.add(record);
+            queue.addAll(record.children);
+        }
+        records = BuildOperationRecord.ORDERING.sortedCopy(records);
+
+        List<Deque<Long>> lanes = new ArrayList<Deque<Long>>();
+        Map<Long, Integer> laneById = new HashMap<Long, Integer>();
+
+        Writer writer = Files.asCharSink(file, Charsets.UTF_8).openBufferedStream();
+        try {
+            writer.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            for (BuildOperationRecord record : records) {
+                int lane = assignLane(record, lanes, laneById);
+                if (!first) {
+                    writer.write(",\n");
+                }
+                first = false;
+                writer.write(JsonOutput.toJson(toEvent(record, lane)));
+            }
+            writer.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static int assignLane(BuildOperationRecord record, List<Deque<Long>> lanes, Map<Long, Integer> laneById) {
+        Integer parentLane = record.parentId == null ? null : laneById.get(record.parentId);
+        int lane = -1;
+        if (parentLane != null && fits(record, lanes.get(parentLane))) {
+            lane = parentLane;
+        } else {
+            for (int i = 0; i < lanes.size(); i++) {
+                if (fits(record, lanes.get(i))) {
+                    lane = i;
+                    break;
+                }
+            }
+        }
+        if (lane == -1) {
+            lane = lanes.size();
+            lanes.add(new ArrayDeque<Long>());
+        }
+        lanes.get(lane).push(record.endTime);
+        laneById.put(record.id, lane);
+        return lane;
+    }
+
+    /**
+     * An operation fits into a lane when it is nested within the operation on top of the lane, once all operations
+     * that ended before it started have been removed.
+     */
+    private static boolean fits(BuildOperationRecord record, Deque<Long> openEndTimes) {
+        while (!openEndTimes.isEmpty() && openEndTimes.peek() <= record.startTime) {
+            openEndTimes.pop();
+        }
+        return openEndTimes.isEmpty() || openEndTimes.peek() >= record.endTime;
+    }
+
+    private static Map<String, ?> toEvent(BuildOperationRecord record, int lane) {
+        Map<String, Object> args = new LinkedHashMap<String, Object>();
+        args.put("id", record.id);
+        if (record.failure != null) {
+            args.put("failure", record.failure);
+        }
+
+        Map<String, Object> event = new LinkedHashMap<String, Object>();
+        event.put("name", record.displayName);
+        event.put("ph", "X");
+        // Build operation times are in milliseconds, trace event times in microseconds
+        event.put("ts", record.startTime * 1000);
+        event.put("dur", (record.endTime - record.startTime) * 1000);
+        event.put("pid", 1);
+        event.put("tid", lane);
+        event.put("args", args);
+        return event;
+    }
+}
@@ -41,14 +41,17 @@ import org.gradle.internal.operations.logging.LoggingBuildOperationProgressBroad
 import org.gradle.internal.operations.notify.BuildOperationNotificationBridge;
 import org.gradle.internal.operations.notify.BuildOperationNotificationListenerRegistrar;
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
+import org.gradle.internal.operations.profiler.BuildOperationSamplingProfiler;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.LowMemoryWorkerLeaseLimiter;
 import org.gradle.internal.work.StopShieldingWorkerLeaseService;
 import org.gradle.internal.work.WorkerLeaseService;
+import org.gradle.process.internal.health.memory.MemoryManager;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -66,9 +69,11 @@ import java.io.IOException;
  */
 public class CrossBuildSessionScopeServices implements Closeable {
     private final BuildOperationTrace buildOperationTrace;
+    private final BuildOperationSamplingProfiler buildOperationSamplingProfiler;
     private final BuildOperationNotificationBridge buildOperationNotificationBridge;
     private final LoggingBuildOperationProgressBroadcaster loggingBuildOperationProgressBroadcaster;
     private final BuildOperationListenerManager buildOperationListenerManager;
+    private final LowMemoryWorkerLeaseLimiter lowMemoryWorkerLeaseLimiter;
 
     private final Services services;
 
@@ -79,8 +84,10 @@ public class CrossBuildSessionScopeServices implements Closeable {
 
         ListenerManager generalListenerManager = parent.get(ListenerManager.class);
         this.buildOperationTrace = new BuildOperationTrace(startParameter, buildOperationListenerManager, generalListenerManager);
+        this.buildOperationSamplingProfiler = new BuildOperationSamplingProfiler(startParameter, buildOperationListenerManager, parent.get(ExecutorFactory.class));
         this.buildOperationNotificationBridge = new BuildOperationNotificationBridge(buildOperationListenerManager, generalListenerManager);
         this.loggingBuildOperationProgressBroadcaster = new LoggingBuildOperationProgressBroadcaster(parent.get(OutputEventListenerManager.class), buildOperationListenerManager.getBroadcaster());
+        this.lowMemoryWorkerLeaseLimiter = new LowMemoryWorkerLeaseLimiter(services.get(DefaultWorkerLeaseService.class), parent.get(MemoryManager.class), buildOperationListenerManager, parent.get(Clock.class));
     }
 
     GradleLauncherFactory createGradleLauncherFactory() {
@@ -123,7 +130,9 @@ public class CrossBuildSessionScopeServices implements Closeable {
     @Override
     public void close() throws IOException {
         new CompositeStoppable().add(
+            lowMemoryWorkerLeaseLimiter,
             buildOperationTrace,
+            buildOperationSamplingProfiler,
             buildOperationNotificationBridge,
             loggingBuildOperationProgressBroadcaster,
             services
@@ -143,7 +152,7 @@ public class CrossBuildSessionScopeServices implements Closeable {
             );
         }
 
-        WorkerLeaseService createWorkerLeaseService(ResourceLockCoordinationService resourceLockCoordinationService, ParallelismConfigurationManager parallelismConfigurationManager) {
+        DefaultWorkerLeaseService createWorkerLeaseService(ResourceLockCoordinationService resourceLockCoordinationService, ParallelismConfigurationManager parallelismConfigurationManager) {
             return new DefaultWorkerLeaseService(resourceLockCoordinationService, parallelismConfigurationManager);
         }
 
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.util.NumberUtil;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
+import org.gradle.process.internal.health.memory.OsMemoryStatusListener;
+
+/**
+ * Reduces the number of worker leases that are granted while the system is low on free physical memory, so that fewer memory
+ * heavy tasks, worker actions and test processes are started at the same time. The limit is halved on each memory status update
+ * where free memory is below the threshold, and doubled again once free memory has recovered, up to the max worker count.
+ *
+ * Memory status updates arrive on the memory manager's own thread, outside of any build operation. Each change of the limit is
+ * reported as {@link WorkerLeaseLimitProgressDetails} progress of the root build operation, when a build is running.
+ */
+public class LowMemoryWorkerLeaseLimiter implements OsMemoryStatusListener, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(LowMemoryWorkerLeaseLimiter.class);
+
+    private static final double MIN_FREE_MEMORY_PERCENTAGE = 0.1D;
+    // Between 384M and 1G, in line with the threshold at which idle daemons are stopped
+    private static final long MIN_THRESHOLD_BYTES = 384 * 1024 * 1024;
+    private static final long MAX_THRESHOLD_BYTES = 1024 * 1024 * 1024;
+
+    private final DefaultWorkerLeaseService workerLeaseService;
+    private final MemoryManager memoryManager;
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final Clock clock;
+    private final BuildOperationListener rootBuildOperationTracker = new RootBuildOperationTracker();
+    private volatile OperationIdentifier rootBuildOperation;
+
+    public LowMemoryWorkerLeaseLimiter(DefaultWorkerLeaseService workerLeaseService, MemoryManager memoryManager, BuildOperationListenerManager buildOperationListenerManager, Clock clock) {
+        this.workerLeaseService = workerLeaseService;
+        this.memoryManager = memoryManager;
+        this.buildOperationListenerManager = buildOperationListenerManager;
+        this.clock = clock;
+        buildOperationListenerManager.addListener(rootBuildOperationTracker);
+        memoryManager.addListener(this);
+    }
+
+    @Override
+    public synchronized void onOsMemoryStatus(OsMemoryStatus osMemoryStatus) {
+        long freeMemory = osMemoryStatus.getFreePhysicalMemory();
+        long threshold = Math.min(MAX_THRESHOLD_BYTES, Math.max(MIN_THRESHOLD_BYTES, (long) (osMemoryStatus.getTotalPhysicalMemory() * MIN_FREE_MEMORY_PERCENTAGE)));
+        int maxWorkerCount = workerLeaseService.getMaxWorkerCount();
+        int currentLimit = Math.min(maxWorkerCount, workerLeaseService.getWorkerLeaseLimit());
+
+        if (freeMemory < threshold) {
+            int newLimit = Math.max(1, currentLimit / 2);
+            if (newLimit < currentLimit) {
+                LOGGER.info("Free system memory ({}) fell below threshold of {}, limiting to {} worker leases.", NumberUtil.formatBytes(freeMemory), NumberUtil.formatBytes(threshold), newLimit);
+                limitWorkerLeases(newLimit, maxWorkerCount, freeMemory, threshold);
+            }
+        } else if (freeMemory > 2 * threshold && workerLeaseService.getWorkerLeaseLimit() != Integer.MAX_VALUE) {
+            // Only raise the limit when well above the threshold, to avoid flapping around it
+            int newLimit = currentLimit * 2;
+            if (newLimit >= maxWorkerCount) {
+                LOGGER.info("Free system memory ({}) recovered, no longer limiting worker leases.", NumberUtil.formatBytes(freeMemory));
+                limitWorkerLeases(Integer.MAX_VALUE, maxWorkerCount, freeMemory, threshold);
+            } else {
+                LOGGER.info("Free system memory ({}) recovered, limiting to {} worker leases.", NumberUtil.formatBytes(freeMemory), newLimit);
+                limitWorkerLeases(newLimit, maxWorkerCount, freeMemory, threshold);
+            }
+        }
+    }
+
+    private void limitWorkerLeases(int newLimit, int maxWorkerCount, long freeMemory, long threshold) {
+        workerLeaseService.setWorkerLeaseLimit(newLimit);
+        OperationIdentifier rootBuildOperation = this.rootBuildOperation;
+        if (rootBuildOperation != null) {
+            WorkerLeaseLimit details = new WorkerLeaseLimit(Math.min(newLimit, maxWorkerCount), maxWorkerCount, freeMemory, threshold);
+            buildOperationListenerManager.getBroadcaster().progress(rootBuildOperation, new OperationProgressEvent(clock.getCurrentTime(), details));
+        }
+    }
+
+    @Override
+    public void stop() {
+        memoryManager.removeListener(this);
+        buildOperationListenerManager.removeListener(rootBuildOperationTracker);
+    }
+
+    private class RootBuildOperationTracker implements BuildOperationListener {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            // Operations of unmanaged threads have no parent either, but they never have details
+            if (buildOperation.getParentId() == null && buildOperation.getDetails() != null) {
+                rootBuildOperation = buildOperation.getId();
+            }
+        }
+
+        @Override
+        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            if (buildOperation.getId().equals(rootBuildOperation)) {
+                rootBuildOperation = null;
+            }
+        }
+    }
+
+    private static class WorkerLeaseLimit implements WorkerLeaseLimitProgressDetails {
+        private final int workerLeaseLimit;
+        private final int maxWorkerCount;
+        private final long freePhysicalMemory;
+        private final long freePhysicalMemoryThreshold;
+
+        WorkerLeaseLimit(int workerLeaseLimit, int maxWorkerCount, long freePhysicalMemory, long freePhysicalMemoryThreshold) {
+            this.workerLeaseLimit = workerLeaseLimit;
+            this.maxWorkerCount = maxWorkerCount;
+            this.freePhysicalMemory = freePhysicalMemory;
+            this.freePhysicalMemoryThreshold = freePhysicalMemoryThreshold;
+        }
+
+        @Override
+        public int getWorkerLeaseLimit() {
+            return workerLeaseLimit;
+        }
+
+        @Override
+        public int getMaxWorkerCount() {
+            return maxWorkerCount;
+        }
+
+        @Override
+        public long getFreePhysicalMemory() {
+            return freePhysicalMemory;
+        }
+
+        @Override
+        public long getFreePhysicalMemoryThreshold() {
+            return freePhysicalMemoryThreshold;
+        }
+    }
+}
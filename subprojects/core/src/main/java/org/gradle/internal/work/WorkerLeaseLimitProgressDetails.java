@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+/**
+ * Progress of the root build operation, emitted when the number of worker leases that can be granted changes in response to the
+ * amount of free system memory.
+ *
+ * @since 5.2
+ */
+public interface WorkerLeaseLimitProgressDetails {
+    /**
+     * The number of worker leases that can be granted from now on, which is the max worker count when leases are no longer limited.
+     */
+    int getWorkerLeaseLimit();
+
+    int getMaxWorkerCount();
+
+    long getFreePhysicalMemory();
+
+    /**
+     * The amount of free physical memory below which worker leases are limited.
+     */
+    long getFreePhysicalMemoryThreshold();
+}
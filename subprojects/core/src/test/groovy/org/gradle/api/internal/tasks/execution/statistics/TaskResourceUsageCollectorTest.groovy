@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution.statistics
+
+import org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import spock.lang.Specification
+
+class TaskResourceUsageCollectorTest extends Specification {
+    def collector = new TaskResourceUsageCollector()
+    def id = 1
+
+    def "reports tasks using the most CPU time first"() {
+        given:
+        taskFinished(":a", 10, 100)
+        taskFinished(":b", 30, 10)
+        taskFinished(":c", 20, 1000)
+        taskFinished(":d", 20, 2000)
+
+        when:
+        def tasks = collector.getMostExpensiveTasks(3)
+
+        then:
+        tasks*.taskPath == [":b", ":d", ":c"]
+        tasks*.cpuTimeNanos == [30, 20, 20]
+        tasks*.allocatedBytes == [10, 2000, 1000]
+    }
+
+    def "ignores other operations and tasks without resource usage"() {
+        given:
+        collector.finished(descriptor("other"), new OperationFinishEvent(0, 1, null, "result"))
+        taskFinished(":a", null, null)
+        taskFinished(":b", null, 100)
+
+        expect:
+        collector.getMostExpensiveTasks(10)*.taskPath == [":b"]
+    }
+
+    private void taskFinished(String path, Long cpuTime, Long allocatedBytes) {
+        def result = Stub(ExecuteTaskBuildOperationType.Result) {
+            getCpuTimeNanos() >> cpuTime
+            getAllocatedBytes() >> allocatedBytes
+        }
+        collector.finished(descriptor(path), new OperationFinishEvent(0, 1, null, result))
+    }
+
+    private BuildOperationDescriptor descriptor(String name) {
+        BuildOperationDescriptor.displayName("Task $name").name(name).build(new OperationIdentifier(id++), null)
+    }
+}
@@ -210,6 +210,41 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
 
     }
 
+    def "task is not available for execution until dependencies of all kinds complete"() {
+        given:
+        Task a = project.task("a", type: Async)
+        Task b = project.task("b", type: Async)
+        Task c = project.task("c", type: Async)
+        Task d = project.task("d", type: Async).dependsOn(a).mustRunAfter(b)
+        d.finalizedBy(c)
+
+        when:
+        addToGraphAndPopulate(a, b, d)
+        def taskNodeA = selectNextTaskNode()
+        def taskNodeB = selectNextTaskNode()
+        then:
+        taskNodeA.task == a
+        taskNodeB.task == b
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(taskNodeA)
+        then:
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(taskNodeB)
+        def taskNodeD = selectNextTaskNode()
+        then:
+        taskNodeD.task == d
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(taskNodeD)
+        then:
+        selectNextTask() == c
+    }
+
     def "two tasks that have the same file in outputs are not executed in parallel"() {
         def sharedFile = file("output")
 
@@ -651,6 +686,122 @@ class DefaultExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
         executionPlan.getNode(finalizer).state == Node.ExecutionState.SKIPPED
     }
 
+    def "starts tasks at the head of the longest dependency chain first when running in parallel"() {
+        given:
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        Task leaf = project.task("leaf", type: Async)
+        Task compile = project.task("compile", type: Async)
+        Task dex = project.task("dex", type: Async).dependsOn(compile)
+        Task pack = project.task("pack", type: Async).dependsOn(dex)
+        Task assemble = project.task("assemble", type: Async).dependsOn(leaf, pack)
+
+        when:
+        addToGraphAndPopulate(assemble)
+
+        then:
+        selectNextTask() == compile
+        selectNextTask() == leaf
+        selectNextTask() == null
+    }
+
+    def "starts requested tasks in the order they were requested when running in parallel"() {
+        given:
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        Task leaf = project.task("leaf", type: Async)
+        Task compile = project.task("compile", type: Async)
+        Task dex = project.task("dex", type: Async).dependsOn(compile)
+        Task pack = project.task("pack", type: Async).dependsOn(dex)
+
+        when:
+        addToGraphAndPopulate(leaf, pack)
+
+        then:
+        selectNextTask() == leaf
+        selectNextTask() == compile
+        selectNextTask() == null
+    }
+
+    def "starts a destroyer requested before a producer of its outputs first when running in parallel"() {
+        given:
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        Task clean = createChildProject(project, "a").task("clean", type: AsyncWithDestroysFile) {
+            destroysFile = file("build")
+        }
+        def projectB = createChildProject(project, "b")
+        Task compile = projectB.task("compile", type: AsyncWithOutputDirectory) {
+            outputDirectory = file("build/classes")
+        }
+        Task jar = projectB.task("jar", type: Async).dependsOn(compile)
+        Task build = projectB.task("build", type: Async).dependsOn(jar)
+
+        when:
+        addToGraphAndPopulate(clean, build)
+        def cleanNode = selectNextTaskNode()
+
+        then:
+        cleanNode.task == clean
+        selectNextTask() == null
+
+        when:
+        executionPlan.nodeComplete(cleanNode)
+
+        then:
+        selectNextTask() == compile
+    }
+
+    def "does not start a task before a task it should run after when running in parallel"() {
+        given:
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        Task first = project.task("first", type: Async)
+        Task compile = project.task("compile", type: Async)
+        compile.shouldRunAfter(first)
+        Task dex = project.task("dex", type: Async).dependsOn(compile)
+        Task pack = project.task("pack", type: Async).dependsOn(dex)
+        Task assemble = project.task("assemble", type: Async).dependsOn(first, pack)
+
+        when:
+        addToGraphAndPopulate(assemble)
+
+        then:
+        selectNextTask() == first
+        selectNextTask() == compile
+        selectNextTask() == null
+    }
+
+    def "tasks on dependency chains of the same length keep plan order when running in parallel"() {
+        given:
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        Task first = project.task("first", type: Async)
+        Task second = project.task("second", type: Async)
+        Task third = project.task("third", type: Async)
+        first.shouldRunAfter(third)
+
+        when:
+        addToGraphAndPopulate(first, second, third)
+
+        then:
+        selectNextTask() == third
+        selectNextTask() == first
+        selectNextTask() == second
+        selectNextTask() == null
+    }
+
+    def "starts tasks in plan order when not running in parallel"() {
+        given:
+        Task leaf = project.task("leaf", type: Async)
+        Task compile = project.task("compile", type: Async)
+        Task dex = project.task("dex", type: Async).dependsOn(compile)
+        Task pack = project.task("pack", type: Async).dependsOn(dex)
+
+        when:
+        addToGraphAndPopulate(leaf, pack)
+
+        then:
+        selectNextTask() == leaf
+        selectNextTask() == compile
+        selectNextTask() == null
+    }
+
     private void addToGraphAndPopulate(Task... tasks) {
         executionPlan.addEntryTasks(Arrays.asList(tasks))
         executionPlan.determineExecutionPlan()
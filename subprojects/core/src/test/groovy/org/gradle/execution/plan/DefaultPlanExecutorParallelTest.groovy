@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.Action
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.resources.ResourceLockState
+import org.gradle.internal.work.DefaultWorkerLeaseService
+import org.gradle.internal.work.WorkerLeaseRegistry
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import static org.gradle.util.Path.path
+
+class DefaultPlanExecutorParallelTest extends ConcurrentSpec {
+    def coordinationService = new DefaultResourceLockCoordinationService()
+    def workerLeaseService = new DefaultWorkerLeaseService(coordinationService, new ParallelismConfigurationManagerFixture(true, 2))
+    def cancellationToken = Stub(BuildCancellationToken)
+    def planExecutor = new DefaultPlanExecutor(new DefaultParallelismConfiguration(true, 2), executorFactory, workerLeaseService, cancellationToken, coordinationService)
+
+    def cleanup() {
+        workerLeaseService.stop()
+    }
+
+    def "worker blocked on the project lock of a running node is woken up when that node completes"() {
+        def projectLock = workerLeaseService.getProjectLock(path(":"), path(":a"))
+        def first = Stub(Node)
+        def second = Stub(Node)
+        def queue = [first, second]
+        def completed = 0
+        def blocked = false
+        // Every node requires the same project lock, which is released when the node completes
+        def executionPlan = Stub(ExecutionPlan) {
+            selectNext(_, _) >> { WorkerLeaseRegistry.WorkerLease workerLease, ResourceLockState resourceLockState ->
+                if (queue.empty || !workerLease.tryLock()) {
+                    return null
+                }
+                if (!projectLock.tryLock()) {
+                    resourceLockState.releaseLocks()
+                    if (!blocked) {
+                        blocked = true
+                        instant.secondBlocked
+                    }
+                    return null
+                }
+                return queue.remove(0)
+            }
+            nodeComplete(_) >> { Node node ->
+                projectLock.unlock()
+                completed++
+                if (node.is(first)) {
+                    instant.firstCompleted
+                }
+            }
+            allNodesComplete() >> { completed == 2 }
+            hasNodesRemaining() >> { !queue.empty }
+        }
+        def failures = []
+
+        when:
+        async {
+            workerLeaseService.withLocks([workerLeaseService.workerLease]) {
+                planExecutor.process(executionPlan, failures, { Node node ->
+                    if (node.is(first)) {
+                        thread.blockUntil.secondBlocked
+                    } else {
+                        instant.secondStarted
+                    }
+                } as Action<Node>)
+            }
+        }
+
+        then:
+        instant.secondStarted > instant.firstCompleted
+        failures.empty
+        !projectLock.locked
+    }
+}
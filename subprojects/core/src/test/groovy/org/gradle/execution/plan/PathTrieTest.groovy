@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PathTrieTest extends Specification {
+    def trie = new PathTrie('/' as char)
+
+    def "empty trie does not overlap with anything"() {
+        expect:
+        trie.empty
+        !trie.hasOverlap("/a")
+        !trie.hasOverlap(["/a", "/"])
+    }
+
+    @Unroll
+    def "#path overlaps with #contained: #overlaps"() {
+        trie.add(contained)
+
+        expect:
+        trie.hasOverlap(path) == overlaps
+
+        where:
+        contained   | path        | overlaps
+        "/a/b"      | "/a/b"      | true
+        "/a/b"      | "/a"        | true
+        "/a/b"      | "/a/b/c/d"  | true
+        "/a/b"      | "/a/bc"     | false
+        "/a/bc"     | "/a/b"      | false
+        "/a/b"      | "/a/c"      | false
+        "/a/b"      | "/b"        | false
+        "/"         | "/"         | true
+        "/"         | "/a/b"      | false
+        "/a/b"      | "/"         | false
+        "/a"        | "/a/"       | true
+        "/a/"       | "/a/b"      | false
+    }
+
+    def "removed paths no longer overlap"() {
+        trie.add("/a/b")
+        trie.add("/a/b")
+        trie.add("/a/c/d")
+
+        when:
+        trie.remove("/a/b")
+        then:
+        trie.hasOverlap("/a/b/c")
+
+        when:
+        trie.remove("/a/b")
+        then:
+        !trie.hasOverlap("/a/b/c")
+        !trie.hasOverlap("/a/b")
+        trie.hasOverlap("/a")
+        trie.hasOverlap("/a/c")
+
+        when:
+        trie.remove("/a/c/d")
+        then:
+        trie.empty
+        !trie.hasOverlap("/a")
+    }
+
+    def "removing a path that is not contained leaves the trie unchanged"() {
+        trie.add("/a/b/c")
+
+        when:
+        trie.remove("/a/b")
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        trie.remove("/a/b/c/d")
+        then:
+        thrown(IllegalStateException)
+        trie.hasOverlap("/a/b/c")
+
+        when:
+        trie.remove("/a/b/c")
+        then:
+        trie.empty
+        !trie.hasOverlap("/a")
+    }
+
+    def "checks any of the given paths"() {
+        trie.add("/out/classes")
+        trie.add("/out/resources")
+
+        expect:
+        trie.hasOverlap(["/src", "/out/resources/main"])
+        !trie.hasOverlap(["/src", "/out/libs"])
+    }
+
+    def "can be cleared"() {
+        trie.add("/a/b")
+
+        when:
+        trie.clear()
+
+        then:
+        trie.empty
+        !trie.hasOverlap("/a/b")
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.buildevents
+
+import org.gradle.api.internal.tasks.execution.statistics.TaskResourceUsageCollector.TaskResourceUsage
+import org.gradle.internal.logging.text.TestStyledTextOutputFactory
+import org.gradle.util.TextUtil
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.TimeUnit
+
+@Subject(TaskResourceUsageReporter)
+class TaskResourceUsageReporterTest extends Specification {
+    def textOutputFactory = new TestStyledTextOutputFactory()
+    def reporter = new TaskResourceUsageReporter(textOutputFactory)
+
+    def "does not report anything given no tasks"() {
+        when:
+        reporter.buildFinished([])
+
+        then:
+        (textOutputFactory as String) == ""
+    }
+
+    def "reports CPU time and allocated memory of tasks"() {
+        when:
+        reporter.buildFinished([
+            new TaskResourceUsage(":a", TimeUnit.MILLISECONDS.toNanos(1500), 2500000),
+            new TaskResourceUsage(":b", TimeUnit.MILLISECONDS.toNanos(20), 800)
+        ])
+
+        then:
+        TextUtil.normaliseLineSeparators(textOutputFactory as String) == "{org.gradle.internal.buildevents.TaskResourceUsageReporter}{INFO}Tasks using the most CPU time:\n" +
+            "  :a: 1.500s CPU, 2.5 MB allocated\n" +
+            "  :b: 0.020s CPU, 800 B allocated\n"
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.profiler
+
+import org.gradle.StartParameter
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class BuildOperationSamplingProfilerTest extends ConcurrentSpec {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def startParameter = new StartParameter()
+    def buildOperationListenerManager = Mock(BuildOperationListenerManager)
+    def profilerExecutorFactory = Mock(ExecutorFactory)
+    def scheduledExecutor = Mock(ManagedScheduledExecutor)
+    def running = new AtomicBoolean(true)
+    BuildOperationListener listener
+    long operationId
+
+    def "does nothing unless enabled"() {
+        when:
+        def profiler = new BuildOperationSamplingProfiler(startParameter, buildOperationListenerManager, profilerExecutorFactory)
+
+        then:
+        0 * buildOperationListenerManager._
+        0 * profilerExecutorFactory._
+
+        when:
+        profiler.stop()
+
+        then:
+        0 * buildOperationListenerManager._
+        tmpDir.testDirectory.listFiles().length == 0
+    }
+
+    def "does nothing when disabled explicitly"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationSamplingProfiler.SYSPROP, "false")
+
+        when:
+        def profiler = new BuildOperationSamplingProfiler(startParameter, buildOperationListenerManager, profilerExecutorFactory)
+        profiler.stop()
+
+        then:
+        0 * buildOperationListenerManager._
+        0 * profilerExecutorFactory._
+    }
+
+    def "samples periodically when enabled"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationSamplingProfiler.SYSPROP, tmpDir.file("profile").absolutePath)
+
+        when:
+        def profiler = new BuildOperationSamplingProfiler(startParameter, buildOperationListenerManager, profilerExecutorFactory)
+
+        then:
+        1 * buildOperationListenerManager.addListener(_)
+        1 * profilerExecutorFactory.createScheduled(_, 1) >> scheduledExecutor
+        1 * scheduledExecutor.scheduleAtFixedRate(_, 10, 10, _)
+
+        when:
+        profiler.stop()
+
+        then:
+        1 * buildOperationListenerManager.removeListener(_)
+        1 * scheduledExecutor.stop()
+    }
+
+    def "attributes samples to the innermost operation with details"() {
+        given:
+        def profiler = enabledProfiler()
+        def task = operation("Task :a", "details", null)
+
+        when:
+        runOperationsWhileSampling(profiler, 3, [task, operation("Snapshot inputs", null, task)])
+        profiler.stop()
+
+        then:
+        operationsOf(stacks()) == ["Task :a"]
+        sampleCount(stacks()) == 3
+    }
+
+    def "attributes samples to the innermost operation when it has details"() {
+        given:
+        def profiler = enabledProfiler()
+        def task = operation("Task :a", "details", null)
+
+        when:
+        runOperationsWhileSampling(profiler, 2, [task, operation("Transform a.jar", "details", task)])
+        profiler.stop()
+
+        then:
+        operationsOf(stacks()) == ["Transform a.jar"]
+        sampleCount(stacks()) == 2
+    }
+
+    def "does not attribute samples to finished operations"() {
+        given:
+        def profiler = enabledProfiler()
+
+        when:
+        async {
+            def task = operation("Task :a", "details", null)
+            start {
+                listener.started(task, new OperationStartEvent(0))
+                listener.finished(task, new OperationFinishEvent(0, 1, null, null))
+                instant.finished
+                spin()
+            }
+            thread.blockUntil.finished
+            profiler.sample()
+            running.set(false)
+        }
+        profiler.stop()
+
+        then:
+        stacks().empty
+    }
+
+    def "forgets threads once all of their operations have finished"() {
+        given:
+        def profiler = enabledProfiler()
+        def build = operation("Build", "details", null)
+        def task = operation("Task :a", "details", build)
+
+        when:
+        listener.started(build, new OperationStartEvent(0))
+        listener.started(task, new OperationStartEvent(0))
+        listener.finished(task, new OperationFinishEvent(0, 1, null, null))
+
+        then:
+        profiler.trackedThreadCount == 1
+
+        when:
+        listener.finished(build, new OperationFinishEvent(0, 1, null, null))
+
+        then:
+        profiler.trackedThreadCount == 0
+
+        when:
+        listener.started(build, new OperationStartEvent(0))
+
+        then:
+        profiler.trackedThreadCount == 1
+
+        cleanup:
+        profiler.stop()
+    }
+
+    def "writes samples as collapsed stacks with the operation as root frame"() {
+        given:
+        def profiler = enabledProfiler()
+
+        when:
+        runOperationsWhileSampling(profiler, 1, [operation("Task :a;b", "details", null)])
+        profiler.stop()
+
+        then:
+        def stacks = stacks()
+        stacks.size() == 1
+        // operation;outermost frame;...;innermost frame count
+        stacks[0] ==~ /Task :a,b(;[^; ]+\.[^; ]+)+ 1/
+        stacks[0].contains(";${BuildOperationSamplingProfilerTest.name}.spin")
+        stacks[0].indexOf(";java.lang.Thread.") < stacks[0].indexOf(".spin")
+    }
+
+    def "writes operations with the most samples as hotspots"() {
+        given:
+        def profiler = enabledProfiler()
+
+        when:
+        runOperationsWhileSampling(profiler, 2, [operation("Task :a", "details", null)])
+        profiler.stop()
+
+        then:
+        def hotspots = tmpDir.file("profile-hotspots.txt").readLines()
+        hotspots[0] == "Task :a: 2 samples (~20ms)"
+        hotspots.drop(1).every { it.startsWith("  ") }
+    }
+
+    private BuildOperationSamplingProfiler enabledProfiler() {
+        startParameter.systemPropertiesArgs.put(BuildOperationSamplingProfiler.SYSPROP, tmpDir.file("profile").absolutePath)
+        // Samples are taken explicitly by the test rather than by the scheduled executor
+        profilerExecutorFactory.createScheduled(_, _) >> scheduledExecutor
+        buildOperationListenerManager.addListener(_) >> { BuildOperationListener added -> listener = added }
+        return new BuildOperationSamplingProfiler(startParameter, buildOperationListenerManager, profilerExecutorFactory)
+    }
+
+    private BuildOperationDescriptor operation(String displayName, Object details, BuildOperationDescriptor parent) {
+        return BuildOperationDescriptor.displayName(displayName).details(details).build(new OperationIdentifier(++operationId), parent?.id)
+    }
+
+    /**
+     * Starts the given operations on a thread that keeps running, takes the given number of samples and then finishes the operations.
+     */
+    private void runOperationsWhileSampling(BuildOperationSamplingProfiler profiler, int samples, List<BuildOperationDescriptor> operations) {
+        async {
+            start {
+                operations.each { listener.started(it, new OperationStartEvent(0)) }
+                instant.started
+                spin()
+                operations.reverse().each { listener.finished(it, new OperationFinishEvent(0, 1, null, null)) }
+            }
+            thread.blockUntil.started
+            samples.times { profiler.sample() }
+            running.set(false)
+        }
+    }
+
+    private void spin() {
+        // Keep the thread runnable, as only runnable threads are sampled
+        while (running.get()) {
+        }
+    }
+
+    private List<String> stacks() {
+        return tmpDir.file("profile-stacks.txt").readLines()
+    }
+
+    private static List<String> operationsOf(List<String> stacks) {
+        return stacks.collect { it.substring(0, it.indexOf(';')) }.unique()
+    }
+
+    private static int sampleCount(List<String> stacks) {
+        return stacks.sum { it.substring(it.lastIndexOf(' ') + 1) as int } as int
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.BuildResult
+import org.gradle.StartParameter
+import org.gradle.api.Action
+import org.gradle.api.invocation.Gradle
+import org.gradle.internal.InternalBuildAdapter
+import org.gradle.internal.event.ListenerManager
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BuildOperationTraceTest extends Specification {
+    private static final long START = 1500000000000L
+
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def startParameter = new StartParameter()
+    BuildOperationListener listener
+
+    def buildOperationListenerManager = Mock(BuildOperationListenerManager) {
+        addListener(_) >> { BuildOperationListener added -> listener = added }
+    }
+
+    def basePath = tmpDir.file("operations").absolutePath
+
+    def "writes log and trees"() {
+        given:
+        def trace = startTrace()
+
+        when:
+        runOperations()
+        trace.stop()
+
+        then:
+        tmpDir.file("operations-log.txt").file
+        tmpDir.file("operations-tree.json").file
+        tmpDir.file("operations-tree.txt").readLines() == [
+            "Build [100ms] (1)",
+            "  Configure [40ms] (2)",
+        ]
+    }
+
+    def "events are written to the log as they occur"() {
+        given:
+        def trace = startTrace()
+
+        when:
+        runOperations()
+
+        then:
+        tmpDir.file("operations-log.txt").readLines().size() == 4
+
+        cleanup:
+        trace.stop()
+    }
+
+    def "does not write trees when disabled"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationTrace.TREE_SYSPROP, "false")
+        def trace = startTrace()
+
+        when:
+        runOperations()
+        trace.stop()
+
+        then:
+        tmpDir.file("operations-log.txt").file
+        !tmpDir.file("operations-tree.json").exists()
+        !tmpDir.file("operations-tree.txt").exists()
+    }
+
+    def "converts log to trees after the build"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationTrace.TREE_SYSPROP, "false")
+        def trace = startTrace()
+        runOperations()
+        trace.stop()
+
+        when:
+        BuildOperationTraceConverter.convert(basePath, EnumSet.of(BuildOperationTraceConverter.Format.TREE))
+
+        then:
+        tmpDir.file("operations-tree.json").file
+        tmpDir.file("operations-tree.txt").readLines() == [
+            "Build [100ms] (1)",
+            "  Configure [40ms] (2)",
+        ]
+        !tmpDir.file("operations-chrome.json").exists()
+    }
+
+    def "converts log to chrome trace after the build"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationTrace.TREE_SYSPROP, "false")
+        def trace = startTrace()
+        runOperations()
+        trace.stop()
+
+        when:
+        BuildOperationTraceConverter.convert(basePath, EnumSet.of(BuildOperationTraceConverter.Format.CHROME))
+
+        then:
+        def events = new JsonSlurper().parse(tmpDir.file("operations-chrome.json")).traceEvents
+        events*.name == ["Build", "Configure"]
+        events*.ph == ["X", "X"]
+        events*.ts == [START * 1000, (START + 10) * 1000]
+        events*.dur == [100000, 40000]
+        !tmpDir.file("operations-tree.txt").exists()
+    }
+
+    def "converts log to all formats from the command line"() {
+        given:
+        startParameter.systemPropertiesArgs.put(BuildOperationTrace.TREE_SYSPROP, "false")
+        def trace = startTrace()
+        runOperations()
+        trace.stop()
+
+        expect:
+        BuildOperationTraceConverter.run([basePath] as String[], System.err) == 0
+        tmpDir.file("operations-tree.txt").file
+        tmpDir.file("operations-chrome.json").file
+    }
+
+    @Unroll
+    def "rejects invalid command line arguments"() {
+        given:
+        def err = new ByteArrayOutputStream()
+
+        expect:
+        BuildOperationTraceConverter.run(args as String[], new PrintStream(err)) == 1
+        err.toString().startsWith(message)
+
+        where:
+        args                   | message
+        []                     | "Usage: BuildOperationTraceConverter"
+        ["operations", "html"] | "Unknown format 'html'"
+    }
+
+    private BuildOperationTrace startTrace() {
+        startParameter.systemPropertiesArgs.put(BuildOperationTrace.SYSPROP, basePath)
+        def trace = new BuildOperationTrace(startParameter, buildOperationListenerManager, Stub(ListenerManager))
+        // Operations are buffered until the root build has started and finished loading its projects
+        def gradle = Stub(Gradle) {
+            getParent() >> null
+            buildFinished(_ as Action) >> { Action<BuildResult> action -> action.execute(null) }
+        }
+        (listener as InternalBuildAdapter).buildStarted(gradle)
+        return trace
+    }
+
+    private void runOperations() {
+        def build = BuildOperationDescriptor.displayName("Build").build(new OperationIdentifier(1), null)
+        def configure = BuildOperationDescriptor.displayName("Configure").build(new OperationIdentifier(2), new OperationIdentifier(1))
+        listener.started(build, new OperationStartEvent(START))
+        listener.started(configure, new OperationStartEvent(START + 10))
+        listener.finished(configure, new OperationFinishEvent(START + 10, START + 50, null, null))
+        listener.finished(build, new OperationFinishEvent(START, START + 100, null, null))
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ChromeTraceWriterTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "nested operations share the lane of their parent"() {
+        def child = record(2, 1, 10, 50)
+        def grandChild = record(3, 2, 20, 30)
+        def root = record(1, null, 0, 100, [child])
+        child.children.add(grandChild)
+
+        expect:
+        lanesOf([root]) == [1: 0, 2: 0, 3: 0]
+    }
+
+    def "overlapping siblings are put on separate lanes"() {
+        def first = record(2, 1, 10, 50)
+        def second = record(3, 1, 20, 60)
+        def root = record(1, null, 0, 100, [first, second])
+
+        expect:
+        lanesOf([root]) == [1: 0, 2: 0, 3: 1]
+    }
+
+    def "operation returns to the lane of its parent once earlier siblings have ended"() {
+        def first = record(2, 1, 10, 50)
+        def second = record(3, 1, 20, 60)
+        def third = record(4, 1, 70, 90)
+        def root = record(1, null, 0, 100, [first, second, third])
+
+        expect:
+        lanesOf([root]) == [1: 0, 2: 0, 3: 1, 4: 0]
+    }
+
+    def "operations that fit no open lane get a new lane and later operations reuse the first free lane"() {
+        def first = record(2, 1, 10, 50)
+        def second = record(3, 1, 20, 60)
+        def third = record(4, 1, 30, 70)
+        def root = record(1, null, 0, 100, [first, second, third])
+        def other = record(5, null, 200, 300)
+
+        expect:
+        lanesOf([root, other]) == [1: 0, 2: 0, 3: 1, 4: 2, 5: 0]
+    }
+
+    def "writes complete events in microseconds"() {
+        def root = record(1, null, 1000, 1250)
+
+        when:
+        def events = write([root])
+
+        then:
+        events.size() == 1
+        events[0].name == "op 1"
+        events[0].ph == "X"
+        events[0].ts == 1000000
+        events[0].dur == 250000
+        events[0].pid == 1
+        events[0].tid == 0
+        events[0].args == [id: 1]
+    }
+
+    private Map<Integer, Integer> lanesOf(List<BuildOperationRecord> roots) {
+        return write(roots).collectEntries { [(it.args.id): it.tid] }
+    }
+
+    private List<Map<String, ?>> write(List<BuildOperationRecord> roots) {
+        def file = tmpDir.file("trace.json")
+        ChromeTraceWriter.write(roots, file)
+        return new JsonSlurper().parse(file).traceEvents
+    }
+
+    private static BuildOperationRecord record(long id, Long parentId, long startTime, long endTime, List<BuildOperationRecord> children = []) {
+        return new BuildOperationRecord(id, parentId, "op $id", startTime, endTime, null, null, null, null, null, [], new ArrayList<BuildOperationRecord>(children))
+    }
+}
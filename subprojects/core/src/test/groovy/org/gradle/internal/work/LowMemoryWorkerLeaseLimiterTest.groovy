@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work
+
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.internal.time.Clock
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryStatusSnapshot
+import spock.lang.Specification
+
+class LowMemoryWorkerLeaseLimiterTest extends Specification {
+    private static final long GB = 1024 * 1024 * 1024
+
+    def workerLeaseService = Mock(DefaultWorkerLeaseService)
+    def memoryManager = Mock(MemoryManager)
+    def broadcaster = Mock(BuildOperationListener)
+    def buildOperationListenerManager = Mock(BuildOperationListenerManager)
+    def clock = Stub(Clock) {
+        getCurrentTime() >> 1000
+    }
+    def rootBuildOperation = BuildOperationDescriptor.displayName("Run build").details(new Object()).build(new OperationIdentifier(1), null)
+    BuildOperationListener rootBuildOperationTracker
+    LowMemoryWorkerLeaseLimiter limiter
+
+    def setup() {
+        _ * buildOperationListenerManager.broadcaster >> broadcaster
+        _ * buildOperationListenerManager.addListener(_) >> { BuildOperationListener listener -> rootBuildOperationTracker = listener }
+        limiter = new LowMemoryWorkerLeaseLimiter(workerLeaseService, memoryManager, buildOperationListenerManager, clock)
+        rootBuildOperationTracker.started(rootBuildOperation, new OperationStartEvent(0))
+    }
+
+    def "listens to memory status updates and build operations until stopped"() {
+        when:
+        def newLimiter = new LowMemoryWorkerLeaseLimiter(workerLeaseService, memoryManager, buildOperationListenerManager, clock)
+
+        then:
+        1 * memoryManager.addListener({ it instanceof LowMemoryWorkerLeaseLimiter })
+
+        when:
+        newLimiter.stop()
+
+        then:
+        1 * memoryManager.removeListener(newLimiter)
+        1 * buildOperationListenerManager.removeListener(rootBuildOperationTracker)
+    }
+
+    def "limits worker leases without reporting progress when no build is running"() {
+        given:
+        rootBuildOperationTracker.finished(rootBuildOperation, new OperationFinishEvent(0, 1, null, null))
+
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, GB / 2 as long))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> Integer.MAX_VALUE
+        1 * workerLeaseService.setWorkerLeaseLimit(4)
+        0 * broadcaster._
+    }
+
+    def "halves worker leases while free memory is low"() {
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, GB / 2 as long))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> Integer.MAX_VALUE
+        1 * workerLeaseService.setWorkerLeaseLimit(4)
+        1 * broadcaster.progress(rootBuildOperation.id, { it.time == 1000 && it.details instanceof WorkerLeaseLimitProgressDetails }) >> { OperationIdentifier id, progressEvent ->
+            def details = progressEvent.details
+            assert details.workerLeaseLimit == 4
+            assert details.maxWorkerCount == 8
+            assert details.freePhysicalMemory == GB / 2 as long
+            assert details.freePhysicalMemoryThreshold == GB
+        }
+
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, GB / 2 as long))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> 4
+        1 * workerLeaseService.setWorkerLeaseLimit(2)
+        1 * broadcaster.progress(rootBuildOperation.id, { it.details.workerLeaseLimit == 2 })
+    }
+
+    def "never limits below a single worker lease"() {
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, GB / 2 as long))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> 1
+        0 * workerLeaseService.setWorkerLeaseLimit(_)
+        0 * broadcaster._
+    }
+
+    def "restores worker leases once free memory has recovered"() {
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, 8 * GB))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> 2
+        1 * workerLeaseService.setWorkerLeaseLimit(4)
+        1 * broadcaster.progress(rootBuildOperation.id, { it.details.workerLeaseLimit == 4 })
+
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, 8 * GB))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> 4
+        1 * workerLeaseService.setWorkerLeaseLimit(Integer.MAX_VALUE)
+        1 * broadcaster.progress(rootBuildOperation.id, { it.details.workerLeaseLimit == 8 })
+    }
+
+    def "leaves worker leases alone when free memory is close to the threshold"() {
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, (long) (1.5 * GB)))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> 4
+        0 * workerLeaseService.setWorkerLeaseLimit(_)
+    }
+
+    def "does nothing when free memory is sufficient and worker leases are not limited"() {
+        when:
+        limiter.onOsMemoryStatus(new OsMemoryStatusSnapshot(16 * GB, 8 * GB))
+
+        then:
+        _ * workerLeaseService.maxWorkerCount >> 8
+        _ * workerLeaseService.workerLeaseLimit >> Integer.MAX_VALUE
+        0 * workerLeaseService.setWorkerLeaseLimit(_)
+    }
+}
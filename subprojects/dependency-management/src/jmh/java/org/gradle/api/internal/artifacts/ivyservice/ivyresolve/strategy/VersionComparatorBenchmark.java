@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorts real-world version listings, as done when selecting a dynamic version, comparing parsed versions
+ * (which use the precomputed numeric parts) with versions that go through the generic {@link Version} path.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class VersionComparatorBenchmark {
+    private static final String[] GUAVA = {
+        "10.0", "10.0.1", "11.0", "11.0.1", "11.0.2", "12.0", "12.0.1", "13.0", "13.0.1", "14.0", "14.0.1", "15.0", "16.0", "16.0.1",
+        "17.0", "18.0", "19.0", "20.0", "21.0", "22.0", "22.0-android", "23.0", "23.0-android", "23.1-jre", "23.1-android",
+        "23.2-jre", "23.2-android", "23.3-jre", "23.3-android", "23.4-jre", "23.4-android", "23.5-jre", "23.5-android",
+        "23.6-jre", "23.6-android", "23.6.1-jre", "23.6.1-android", "24.0-jre", "24.0-android", "24.1-jre", "24.1-android",
+        "25.0-jre", "25.0-android", "25.1-jre", "25.1-android", "26.0-jre", "26.0-android", "27.0-jre", "27.0-android",
+        "27.0.1-jre", "27.0.1-android", "11.0-rc1", "12.0-rc1", "12.0-rc2", "13.0-rc1", "13.0-rc2", "14.0-rc1", "14.0-rc2",
+        "14.0-rc3", "15.0-rc1", "16.0-rc1", "17.0-rc1", "17.0-rc2", "18.0-rc1", "18.0-rc2", "19.0-rc1", "19.0-rc2", "19.0-rc3"
+    };
+    private static final String[] KOTLIN = {
+        "1.0.0", "1.0.1", "1.0.1-1", "1.0.1-2", "1.0.2", "1.0.3", "1.0.4", "1.0.5", "1.0.5-2", "1.0.6", "1.0.7", "1.1.0",
+        "1.1.1", "1.1.2", "1.1.2-2", "1.1.2-3", "1.1.2-4", "1.1.2-5", "1.1.3", "1.1.3-2", "1.1.4", "1.1.4-2", "1.1.4-3",
+        "1.1.50", "1.1.51", "1.1.60", "1.1.61", "1.2.0", "1.2.10", "1.2.20", "1.2.21", "1.2.30", "1.2.31", "1.2.40",
+        "1.2.41", "1.2.50", "1.2.51", "1.2.60", "1.2.61", "1.2.70", "1.2.71", "1.3.0", "1.3.0-rc-190", "1.3.0-rc-198",
+        "1.3.10", "1.3.11", "1.3.20-eap-25", "1.3.20-eap-52", "1.3.20-eap-100", "1.3-M1", "1.3-M2"
+    };
+    private static final String[] SPRING = {
+        "4.3.0.RELEASE", "4.3.1.RELEASE", "4.3.2.RELEASE", "4.3.3.RELEASE", "4.3.4.RELEASE", "4.3.5.RELEASE", "4.3.6.RELEASE",
+        "4.3.7.RELEASE", "4.3.8.RELEASE", "4.3.9.RELEASE", "4.3.10.RELEASE", "4.3.11.RELEASE", "4.3.12.RELEASE", "4.3.13.RELEASE",
+        "4.3.14.RELEASE", "4.3.15.RELEASE", "4.3.16.RELEASE", "4.3.17.RELEASE", "4.3.18.RELEASE", "4.3.19.RELEASE",
+        "4.3.20.RELEASE", "4.3.21.RELEASE", "5.0.0.M1", "5.0.0.M2", "5.0.0.M3", "5.0.0.M4", "5.0.0.M5", "5.0.0.RC1",
+        "5.0.0.RC2", "5.0.0.RC3", "5.0.0.RC4", "5.0.0.RELEASE", "5.0.1.RELEASE", "5.0.2.RELEASE", "5.0.3.RELEASE",
+        "5.0.4.RELEASE", "5.0.5.RELEASE", "5.0.6.RELEASE", "5.0.7.RELEASE", "5.0.8.RELEASE", "5.0.9.RELEASE",
+        "5.0.10.RELEASE", "5.0.11.RELEASE", "5.1.0.RC1", "5.1.0.RC2", "5.1.0.RC3", "5.1.0.RELEASE", "5.1.1.RELEASE",
+        "5.1.2.RELEASE", "5.1.3.RELEASE", "5.1.4.RELEASE"
+    };
+
+    @Param({"guava", "kotlin", "spring"})
+    String listing;
+
+    private final VersionParser versionParser = new VersionParser();
+    private final Comparator<Version> comparator = new DefaultVersionComparator().asVersionComparator();
+    private List<Version> parsed;
+    private List<Version> generic;
+
+    @Setup
+    public void prepare() {
+        String[] versions = "guava".equals(listing) ? GUAVA : "kotlin".equals(listing) ? KOTLIN : SPRING;
+        parsed = new ArrayList<Version>(versions.length);
+        generic = new ArrayList<Version>(versions.length);
+        for (String version : versions) {
+            Version parsedVersion = versionParser.transform(version);
+            parsed.add(parsedVersion);
+            generic.add(new ForwardingVersion(parsedVersion));
+        }
+        Random random = new Random(42);
+        Collections.shuffle(parsed, random);
+        Collections.shuffle(generic, random);
+    }
+
+    @Benchmark
+    public void sortParsedVersions(Blackhole bh) {
+        List<Version> versions = new ArrayList<Version>(parsed);
+        Collections.sort(versions, comparator);
+        bh.consume(versions);
+    }
+
+    @Benchmark
+    public void sortGenericVersions(Blackhole bh) {
+        List<Version> versions = new ArrayList<Version>(generic);
+        Collections.sort(versions, comparator);
+        bh.consume(versions);
+    }
+
+    private static class ForwardingVersion implements Version {
+        private final Version delegate;
+
+        ForwardingVersion(Version delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getSource() {
+            return delegate.getSource();
+        }
+
+        @Override
+        public String[] getParts() {
+            return delegate.getParts();
+        }
+
+        @Override
+        public Long[] getNumericParts() {
+            return delegate.getNumericParts();
+        }
+
+        @Override
+        public Version getBaseVersion() {
+            return delegate.getBaseVersion();
+        }
+
+        @Override
+        public boolean isQualified() {
+            return delegate.isQualified();
+        }
+    }
+}
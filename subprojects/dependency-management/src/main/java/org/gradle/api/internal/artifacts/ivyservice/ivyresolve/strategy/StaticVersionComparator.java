@@ -32,13 +32,24 @@ class StaticVersionComparator implements Comparator<Version> {
     private static final Map<String, Integer> SPECIAL_MEANINGS =
             ImmutableMap.of("dev", -1, "rc", 1, "release", 2, "final", 3);
 
+    /**
+     * Returns the special meaning of the given version part, or 0 when the part has no special meaning.
+     */
+    static int specialMeaningOf(String part) {
+        Integer specialMeaning = SPECIAL_MEANINGS.get(part.toLowerCase(Locale.US));
+        return specialMeaning == null ? 0 : specialMeaning;
+    }
+
     /**
      * Compares 2 versions. Algorithm is inspired by PHP version_compare one.
      */
     public int compare(Version version1, Version version2) {
-        if (version1.equals(version2)) {
+        if (version1 == version2 || version1.equals(version2)) {
             return 0;
         }
+        if (version1 instanceof VersionParser.DefaultVersion && version2 instanceof VersionParser.DefaultVersion) {
+            return compareParsed((VersionParser.DefaultVersion) version1, (VersionParser.DefaultVersion) version2);
+        }
 
         String[] parts1 = version1.getParts();
         String[] parts2 = version2.getParts();
@@ -93,4 +104,53 @@ class StaticVersionComparator implements Comparator<Version> {
 
         return 0;
     }
+
+    /**
+     * Same algorithm as {@link #compare(Version, Version)}, using the numeric values and special meanings precomputed by the parser.
+     */
+    private static int compareParsed(VersionParser.DefaultVersion version1, VersionParser.DefaultVersion version2) {
+        String[] parts1 = version1.getParts();
+        String[] parts2 = version2.getParts();
+
+        int i = 0;
+        for (; i < parts1.length && i < parts2.length; i++) {
+            String part1 = parts1[i];
+            String part2 = parts2[i];
+
+            boolean is1Number = version1.isNumeric(i);
+            boolean is2Number = version2.isNumeric(i);
+
+            if (part1.equals(part2)) {
+                continue;
+            }
+            if (is1Number && !is2Number) {
+                return 1;
+            }
+            if (is2Number && !is1Number) {
+                return -1;
+            }
+            if (is1Number && is2Number) {
+                int result = Long.compare(version1.getNumericValue(i), version2.getNumericValue(i));
+                if (result == 0) {
+                    continue;
+                }
+                return result;
+            }
+            // both are strings, we compare them taking into account special meaning
+            int sm1 = version1.getSpecialMeaning(i);
+            int sm2 = version2.getSpecialMeaning(i);
+            if (sm1 != 0 || sm2 != 0) {
+                return sm1 - sm2;
+            }
+            return part1.compareTo(part2);
+        }
+        if (i < parts1.length) {
+            return version1.isNumeric(i) ? 1 : -1;
+        }
+        if (i < parts2.length) {
+            return version2.isNumeric(i) ? -1 : 1;
+        }
+
+        return 0;
+    }
 }
@@ -94,18 +94,32 @@ public class VersionParser implements Transformer<Version, String> {
         return new DefaultVersion(original, parts, base);
     }
 
-    private static class DefaultVersion implements Version {
+    /**
+     * A parsed version, which also holds the primitive representation of its parts so that {@link StaticVersionComparator}
+     * can compare two parsed versions without boxing or lower-casing any part.
+     */
+    static class DefaultVersion implements Version {
         private final String source;
         private final String[] parts;
         private final Long[] numericParts;
+        private final long[] numericValues;
+        private final int[] specialMeanings;
         private final DefaultVersion baseVersion;
 
         public DefaultVersion(String source, List<String> parts, DefaultVersion baseVersion) {
             this.source = source;
             this.parts = parts.toArray(new String[0]);
             this.numericParts = new Long[this.parts.length];
-            for (int i = 0; i < parts.size(); i++) {
-                this.numericParts[i] = Longs.tryParse(this.parts[i]);
+            this.numericValues = new long[this.parts.length];
+            this.specialMeanings = new int[this.parts.length];
+            for (int i = 0; i < this.parts.length; i++) {
+                Long numericPart = Longs.tryParse(this.parts[i]);
+                this.numericParts[i] = numericPart;
+                if (numericPart != null) {
+                    this.numericValues[i] = numericPart;
+                } else {
+                    this.specialMeanings[i] = StaticVersionComparator.specialMeaningOf(this.parts[i]);
+                }
             }
             this.baseVersion = baseVersion == null ? this : baseVersion;
         }
@@ -155,5 +169,20 @@ public class VersionParser implements Transformer<Version, String> {
         public String getSource() {
             return source;
         }
+
+        boolean isNumeric(int part) {
+            return numericParts[part] != null;
+        }
+
+        long getNumericValue(int part) {
+            return numericValues[part];
+        }
+
+        /**
+         * Returns the special meaning of the given non-numeric part, or 0 when the part has no special meaning.
+         */
+        int getSpecialMeaning(int part) {
+            return specialMeanings[part];
+        }
     }
 }
@@ -25,6 +25,7 @@ import org.gradle.internal.execution.history.ExecutionHistoryStore;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 @ThreadSafe
@@ -58,6 +59,13 @@ public abstract class AbstractCachingTransformationWorkspaceProvider implements
         }
     }
 
+    /**
+     * Returns a live view of the results cached in memory.
+     */
+    protected Map<TransformationWorkspaceIdentity, Try<ImmutableList<File>>> getInMemoryResults() {
+        return inMemoryResultCache.asMap();
+    }
+
     public void clearInMemoryCache() {
         inMemoryResultCache.invalidateAll();
     }
@@ -57,6 +57,8 @@ import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
 import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nullable;
@@ -201,6 +203,7 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
         private final ImmutableSortedMap<String, ValueSnapshot> inputSnapshots;
         private final ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFileFingerprints;
         private final OutputFileCollectionFingerprinter outputFingerprinter;
+        private final Timer executionTimer = Time.startTimer();
 
         public TransformerExecution(
             Transformer transformer,
@@ -310,8 +313,7 @@ public class DefaultTransformerInvoker implements TransformerInvoker {
 
         @Override
         public long markExecutionTime() {
-            // TODO Handle execution time
-            return 0;
+            return executionTimer.getElapsedMillis();
         }
 
         @Override
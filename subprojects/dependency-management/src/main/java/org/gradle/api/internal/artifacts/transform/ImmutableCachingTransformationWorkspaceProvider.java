@@ -16,8 +16,64 @@
 
 package org.gradle.api.internal.artifacts.transform;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.Try;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Caches the results of transformations in immutable workspaces.
+ *
+ * The identity of an immutable workspace covers the primary input, the transformer and its dependencies,
+ * so successful results are kept across builds in the same daemon. A result from a previous build is only
+ * reused when its workspace and its output files still exist, so workspaces removed by cache cleanup are
+ * transformed again.
+ */
 public class ImmutableCachingTransformationWorkspaceProvider extends AbstractCachingTransformationWorkspaceProvider {
+    private final Cache<TransformationWorkspaceIdentity, ImmutableList<File>> resultsFromPreviousBuilds = CacheBuilder.newBuilder().softValues().build();
+
     public ImmutableCachingTransformationWorkspaceProvider(TransformationWorkspaceProvider delegate) {
         super(delegate);
     }
+
+    @Override
+    public Try<ImmutableList<File>> withWorkspace(TransformationWorkspaceIdentity identity, TransformationWorkspaceAction workspaceAction) {
+        return super.withWorkspace(identity, (transformationIdentity, workspace) -> {
+            // The workspace is still acquired from the delegate, so that its access is recorded for cache cleanup
+            ImmutableList<File> previousResult = resultsFromPreviousBuilds.getIfPresent(identity);
+            if (previousResult != null) {
+                if (workspace.getResultsFile().isFile() && allExist(previousResult)) {
+                    return Try.successful(previousResult);
+                }
+                resultsFromPreviousBuilds.invalidate(identity);
+            }
+            return workspaceAction.useWorkspace(transformationIdentity, workspace);
+        });
+    }
+
+    private static boolean allExist(ImmutableList<File> files) {
+        for (File file : files) {
+            if (!file.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Discards the results of the current build from memory, retaining the successful ones for the next builds.
+     */
+    @Override
+    public void clearInMemoryCache() {
+        for (Map.Entry<TransformationWorkspaceIdentity, Try<ImmutableList<File>>> entry : getInMemoryResults().entrySet()) {
+            Try<ImmutableList<File>> result = entry.getValue();
+            if (result.isSuccessful()) {
+                resultsFromPreviousBuilds.put(entry.getKey(), result.get());
+            }
+        }
+        super.clearInMemoryCache();
+    }
 }
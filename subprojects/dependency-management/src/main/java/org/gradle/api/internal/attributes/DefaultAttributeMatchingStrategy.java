@@ -28,9 +28,9 @@ public class DefaultAttributeMatchingStrategy<T> implements AttributeMatchingStr
     private final CompatibilityRuleChain<T> compatibilityRules;
     private final DisambiguationRuleChain<T> disambiguationRules;
 
-    public DefaultAttributeMatchingStrategy(InstantiatorFactory instantiatorFactory, IsolatableFactory isolatableFactory) {
-        compatibilityRules = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultCompatibilityRuleChain.class, instantiatorFactory.inject(), isolatableFactory));
-        disambiguationRules = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultDisambiguationRuleChain.class, instantiatorFactory.inject(), isolatableFactory));
+    public DefaultAttributeMatchingStrategy(InstantiatorFactory instantiatorFactory, IsolatableFactory isolatableFactory, Runnable rulesChanged) {
+        compatibilityRules = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultCompatibilityRuleChain.class, instantiatorFactory.inject(), isolatableFactory, rulesChanged));
+        disambiguationRules = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultDisambiguationRuleChain.class, instantiatorFactory.inject(), isolatableFactory, rulesChanged));
     }
 
     @Override
@@ -51,11 +51,19 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
     private final DefaultAttributeMatcher matcher;
     private final IsolatableFactory isolatableFactory;
     private final Map<ExtraAttributesEntry, Attribute<?>[]> extraAttributesCache = Maps.newHashMap();
+    private final Runnable rulesChanged = new Runnable() {
+        @Override
+        public void run() {
+            schemaChanged();
+        }
+    };
+    // Incremented whenever attributes or rules are added, so that consumers using this schema as producer schema do not see stale matching results
+    private volatile int version;
 
     public DefaultAttributesSchema(ComponentAttributeMatcher componentAttributeMatcher, InstantiatorFactory instantiatorFactory, IsolatableFactory isolatableFactory) {
         this.componentAttributeMatcher = componentAttributeMatcher;
         this.instantiatorFactory = instantiatorFactory;
-        matcher = new DefaultAttributeMatcher(componentAttributeMatcher, mergeWith(EmptySchema.INSTANCE));
+        matcher = new DefaultAttributeMatcher(EmptySchema.INSTANCE);
         this.isolatableFactory = isolatableFactory;
         PlatformSupport.configureSchema(this);
     }
@@ -78,9 +86,10 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
     public <T> AttributeMatchingStrategy<T> attribute(Attribute<T> attribute, Action<? super AttributeMatchingStrategy<T>> configureAction) {
         AttributeMatchingStrategy<T> strategy = Cast.uncheckedCast(strategies.get(attribute));
         if (strategy == null) {
-            strategy = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultAttributeMatchingStrategy.class, instantiatorFactory, isolatableFactory));
+            strategy = Cast.uncheckedCast(instantiatorFactory.decorateLenient().newInstance(DefaultAttributeMatchingStrategy.class, instantiatorFactory, isolatableFactory, rulesChanged));
             strategies.put(attribute, strategy);
             attributesByName.put(attribute.getName(), attribute);
+            schemaChanged();
         }
         if (configureAction != null) {
             configureAction.execute(strategy);
@@ -88,6 +97,11 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
         return strategy;
     }
 
+    private void schemaChanged() {
+        version++;
+        componentAttributeMatcher.invalidateCaches();
+    }
+
     @Override
     public Set<Attribute<?>> getAttributes() {
         return strategies.keySet();
@@ -98,13 +112,13 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
         return strategies.containsKey(key);
     }
 
-    AttributeSelectionSchema mergeWith(AttributesSchemaInternal producerSchema) {
+    MergedSchema mergeWith(AttributesSchemaInternal producerSchema) {
         return new MergedSchema(producerSchema);
     }
 
     @Override
     public AttributeMatcher withProducer(AttributesSchemaInternal producerSchema) {
-        return new DefaultAttributeMatcher(componentAttributeMatcher, mergeWith(producerSchema));
+        return new DefaultAttributeMatcher(producerSchema);
     }
 
     @Override
@@ -130,23 +144,35 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
         return EmptySchema.INSTANCE.disambiguationRules(attribute);
     }
 
-    private static class DefaultAttributeMatcher implements AttributeMatcher {
-        private final ComponentAttributeMatcher componentAttributeMatcher;
-        private final AttributeSelectionSchema effectiveSchema;
+    private class DefaultAttributeMatcher implements AttributeMatcher {
+        private final AttributesSchemaInternal producerSchema;
+        private volatile MergedSchema effectiveSchema;
 
-        DefaultAttributeMatcher(ComponentAttributeMatcher componentAttributeMatcher, AttributeSelectionSchema effectiveSchema) {
-            this.componentAttributeMatcher = componentAttributeMatcher;
-            this.effectiveSchema = effectiveSchema;
+        DefaultAttributeMatcher(AttributesSchemaInternal producerSchema) {
+            this.producerSchema = producerSchema;
+            this.effectiveSchema = mergeWith(producerSchema);
+        }
+
+        /**
+         * Returns the merged schema for the current version of the producer schema, so that matching results cached for an earlier version are not used.
+         */
+        private MergedSchema effectiveSchema() {
+            MergedSchema schema = effectiveSchema;
+            if (schema.producerVersion != schema.currentProducerVersion()) {
+                schema = mergeWith(producerSchema);
+                effectiveSchema = schema;
+            }
+            return schema;
         }
 
         @Override
         public boolean isMatching(AttributeContainerInternal candidate, AttributeContainerInternal requested) {
-            return componentAttributeMatcher.isMatching(effectiveSchema, candidate, requested);
+            return componentAttributeMatcher.isMatching(effectiveSchema(), candidate, requested);
         }
 
         @Override
         public <T> boolean isMatching(Attribute<T> attribute, T candidate, T requested) {
-            return effectiveSchema.matchValue(attribute, requested, candidate);
+            return effectiveSchema().matchValue(attribute, requested, candidate);
         }
 
         @Override
@@ -156,19 +182,29 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
 
         @Override
         public <T extends HasAttributes> List<T> matches(Collection<? extends T> candidates, AttributeContainerInternal requested, @Nullable T fallback) {
-            return componentAttributeMatcher.match(effectiveSchema, candidates, requested, fallback);
+            return componentAttributeMatcher.match(effectiveSchema(), candidates, requested, fallback);
         }
 
         public List<MatchingDescription> describeMatching(AttributeContainerInternal candidate, AttributeContainerInternal requested) {
-            return componentAttributeMatcher.describeMatching(effectiveSchema, candidate, requested);
+            return componentAttributeMatcher.describeMatching(effectiveSchema(), candidate, requested);
         }
     }
 
     private class MergedSchema implements AttributeSelectionSchema {
         private final AttributesSchemaInternal producerSchema;
+        private final int producerVersion;
 
         MergedSchema(AttributesSchemaInternal producerSchema) {
             this.producerSchema = producerSchema;
+            this.producerVersion = currentProducerVersion();
+        }
+
+        private int currentProducerVersion() {
+            return producerSchema instanceof DefaultAttributesSchema ? ((DefaultAttributesSchema) producerSchema).version : 0;
+        }
+
+        private DefaultAttributesSchema getConsumerSchema() {
+            return DefaultAttributesSchema.this;
         }
 
         @Override
@@ -277,12 +313,14 @@ public class DefaultAttributesSchema implements AttributesSchemaInternal, Attrib
                 return false;
             }
             MergedSchema that = (MergedSchema) o;
-            return producerSchema.equals(that.producerSchema);
+            return getConsumerSchema() == that.getConsumerSchema()
+                && producerSchema.equals(that.producerSchema)
+                && producerVersion == that.producerVersion;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hashCode(producerSchema);
+            return Objects.hashCode(System.identityHashCode(getConsumerSchema()), producerSchema, producerVersion);
         }
     }
 
@@ -35,34 +35,40 @@ public class DefaultCompatibilityRuleChain<T> implements CompatibilityRuleChain<
     private final List<Action<? super CompatibilityCheckDetails<T>>> rules = Lists.newArrayList();
     private final Instantiator instantiator;
     private final IsolatableFactory isolatableFactory;
+    private final Runnable rulesChanged;
 
-    public DefaultCompatibilityRuleChain(Instantiator instantiator, IsolatableFactory isolatableFactory) {
+    public DefaultCompatibilityRuleChain(Instantiator instantiator, IsolatableFactory isolatableFactory, Runnable rulesChanged) {
         this.instantiator = instantiator;
         this.isolatableFactory = isolatableFactory;
+        this.rulesChanged = rulesChanged;
     }
 
     @Override
     public void ordered(Comparator<? super T> comparator) {
         Action<? super CompatibilityCheckDetails<T>> rule = AttributeMatchingRules.orderedCompatibility(comparator, false);
         rules.add(rule);
+        rulesChanged.run();
     }
 
     @Override
     public void reverseOrdered(Comparator<? super T> comparator) {
         Action<? super CompatibilityCheckDetails<T>> rule = AttributeMatchingRules.orderedCompatibility(comparator, true);
         rules.add(rule);
+        rulesChanged.run();
     }
 
     @Override
     public void add(Class<? extends AttributeCompatibilityRule<T>> rule, Action<? super ActionConfiguration> configureAction) {
         rules.add(new InstantiatingAction<CompatibilityCheckDetails<T>>(DefaultConfigurableRules.of(DefaultConfigurableRule.<CompatibilityCheckDetails<T>>of(rule, configureAction, isolatableFactory)),
                     instantiator, new ExceptionHandler<T>(rule)));
+        rulesChanged.run();
     }
 
     @Override
     public void add(final Class<? extends AttributeCompatibilityRule<T>> rule) {
         rules.add(new InstantiatingAction<CompatibilityCheckDetails<T>>(DefaultConfigurableRules.of(DefaultConfigurableRule.<CompatibilityCheckDetails<T>>of(rule)),
                     instantiator, new ExceptionHandler<T>(rule)));
+        rulesChanged.run();
     }
 
     @Override
@@ -16,6 +16,8 @@
 package org.gradle.internal.component.model;
 
 import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -39,13 +41,29 @@ import java.util.List;
  */
 public class ComponentAttributeMatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(ComponentAttributeMatcher.class);
+    private static final int MAX_CACHED_QUERIES = 10000;
+    private static final int MAX_CACHED_MATCHING_QUERIES = 50000;
 
     /**
      * Attribute matching can be very expensive. In case there are multiple candidates, we
      * cache the result of the query, because it's often the case that we ask for the same
-     * disambiguation of attributes several times in a row (but with different candidates).
+     * disambiguation of attributes several times (but with different candidates).
      */
-    private CachedQuery lastQuery;
+    private final Cache<CachedQuery, int[]> cachedQueries = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_QUERIES).build();
+
+    /**
+     * Caches the result of compatibility checks of a single candidate, which are repeated for every
+     * version of a component and every variant that share the same attributes.
+     */
+    private final Cache<MatchingQuery, Boolean> cachedMatchingQueries = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MATCHING_QUERIES).build();
+
+    /**
+     * Discards all cached results. Must be called when the attributes or rules of a schema used with this matcher change.
+     */
+    public void invalidateCaches() {
+        cachedQueries.invalidateAll();
+        cachedMatchingQueries.invalidateAll();
+    }
 
     /**
      * Determines whether the given candidate is compatible with the requested criteria, according to the given schema.
@@ -58,6 +76,17 @@ public class ComponentAttributeMatcher {
         ImmutableAttributes requestedAttributes = requested.asImmutable();
         ImmutableAttributes candidateAttributes = candidate.asImmutable();
 
+        MatchingQuery query = new MatchingQuery(schema, requestedAttributes, candidateAttributes);
+        Boolean cachedResult = cachedMatchingQueries.getIfPresent(query);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        boolean result = isMatching(schema, candidateAttributes, requestedAttributes);
+        cachedMatchingQueries.put(query, result);
+        return result;
+    }
+
+    private static boolean isMatching(AttributeSelectionSchema schema, ImmutableAttributes candidateAttributes, ImmutableAttributes requestedAttributes) {
         for (Attribute<?> attribute : requestedAttributes.keySet()) {
             AttributeValue<?> requestedValue = requestedAttributes.findEntry(attribute);
             AttributeValue<?> candidateValue = candidateAttributes.findEntry(attribute.getName());
@@ -130,8 +159,9 @@ public class ComponentAttributeMatcher {
 
         ImmutableAttributes requestedAttributes = requested.asImmutable();
         CachedQuery query = CachedQuery.of(schema, requestedAttributes, candidates);
-        if (query.equals(lastQuery)) {
-            return lastQuery.select(candidates);
+        int[] cachedIndex = cachedQueries.getIfPresent(query);
+        if (cachedIndex != null) {
+            return CachedQuery.select(cachedIndex, candidates);
         }
         List<T> matches = new MultipleCandidateMatcher<T>(schema, candidates, requestedAttributes).getMatches();
         if (LOGGER.isDebugEnabled()) {
@@ -141,7 +171,7 @@ public class ComponentAttributeMatcher {
         return matches;
     }
 
-    private synchronized <T extends HasAttributes> void cacheMatchingResult(Collection<? extends T> candidates, CachedQuery query, List<T> matches) {
+    private <T extends HasAttributes> void cacheMatchingResult(Collection<? extends T> candidates, CachedQuery query, List<T> matches) {
         int[] queryResult;
         if (matches.isEmpty()) {
             queryResult = new int[0];
@@ -163,21 +193,27 @@ public class ComponentAttributeMatcher {
                 j++;
             }
         }
-        query.index = queryResult;
-        lastQuery = query;
+        cachedQueries.put(query, queryResult);
     }
 
     private static class CachedQuery {
         private final AttributeSelectionSchema schema;
         private final ImmutableAttributes requestedAttributes;
         private final ImmutableAttributes[] candidates;
-
-        private volatile int[] index;
+        private final int hashCode;
 
         private CachedQuery(AttributeSelectionSchema schema, ImmutableAttributes requestedAttributes, ImmutableAttributes[] candidates) {
             this.schema = schema;
             this.requestedAttributes = requestedAttributes;
             this.candidates = candidates;
+            this.hashCode = computeHashCode(schema, requestedAttributes, candidates);
+        }
+
+        private static int computeHashCode(AttributeSelectionSchema schema, ImmutableAttributes requestedAttributes, ImmutableAttributes[] candidates) {
+            int hash = schema.hashCode();
+            hash = 31 * hash + requestedAttributes.hashCode();
+            hash = 31 * hash + Arrays.hashCode(candidates);
+            return hash;
         }
 
         public static <T extends HasAttributes> CachedQuery of(AttributeSelectionSchema schema, ImmutableAttributes requestedAttributes, Collection<T> candidates) {
@@ -189,7 +225,7 @@ public class ComponentAttributeMatcher {
             return new CachedQuery(schema, requestedAttributes, attributes);
         }
 
-        public <T extends HasAttributes> List<T> select(Collection<? extends T> unfiltered) {
+        public static <T extends HasAttributes> List<T> select(int[] index, Collection<? extends T> unfiltered) {
             if (index.length == 0) {
                 return Collections.emptyList();
             }
@@ -226,7 +262,40 @@ public class ComponentAttributeMatcher {
 
         @Override
         public int hashCode() {
-            return Objects.hashCode(schema, requestedAttributes, candidates);
+            return hashCode;
+        }
+    }
+
+    private static class MatchingQuery {
+        private final AttributeSelectionSchema schema;
+        private final ImmutableAttributes requestedAttributes;
+        private final ImmutableAttributes candidateAttributes;
+        private final int hashCode;
+
+        private MatchingQuery(AttributeSelectionSchema schema, ImmutableAttributes requestedAttributes, ImmutableAttributes candidateAttributes) {
+            this.schema = schema;
+            this.requestedAttributes = requestedAttributes;
+            this.candidateAttributes = candidateAttributes;
+            this.hashCode = Objects.hashCode(schema, requestedAttributes, candidateAttributes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            MatchingQuery that = (MatchingQuery) o;
+            return schema.equals(that.schema) &&
+                requestedAttributes.equals(that.requestedAttributes) &&
+                candidateAttributes.equals(that.candidateAttributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 }
@@ -259,4 +259,27 @@ class DefaultVersionComparatorTest extends Specification {
         def versionComparator = comparator.asVersionComparator()
         versionComparator.compare(v1, v2) < 0
     }
+
+    def "parsed versions compare the same as other Version implementations"() {
+        def versions = ["1.0", "1.0.0", "1.0-dev-1", "1.0-rc-1", "1.0-RC-2", "1.0-release", "1.0-final", "1.0-SNAPSHOT", "1.0-alpha",
+                        "1.0-ALPHA", "01.1", "1.1a", "1.01", "a.b.123", "", "9223372036854775807", "9223372036854775808"]
+        def versionComparator = comparator.asVersionComparator()
+
+        expect:
+        for (String s1 : versions) {
+            for (String s2 : versions) {
+                def v1 = versionParser.transform(s1)
+                def v2 = versionParser.transform(s2)
+                assert Integer.signum(versionComparator.compare(v1, v2)) == Integer.signum(versionComparator.compare(stub(v1), stub(v2)))
+            }
+        }
+    }
+
+    private Version stub(Version version) {
+        return Stub(Version) {
+            getSource() >> version.source
+            getParts() >> version.parts
+            getNumericParts() >> version.numericParts
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import org.gradle.api.Action
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvableArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet
+import spock.lang.Specification
+
+class DefaultTransformationNodeFactoryTest extends Specification {
+    def factory = new DefaultTransformationNodeFactory()
+    def dependenciesResolver = Stub(ExecutionGraphDependenciesResolver)
+    def step1 = Stub(TransformationStep)
+    def step2 = Stub(TransformationStep)
+    def artifact = Stub(ResolvableArtifact) {
+        getId() >> Stub(ComponentArtifactIdentifier)
+    }
+    def artifactSet = Stub(ResolvedArtifactSet) {
+        visitLocalArtifacts(_) >> { ResolvedArtifactSet.LocalArtifactVisitor visitor -> visitor.visitArtifact(artifact) }
+    }
+
+    def "reuses nodes for the same artifact and transformation"() {
+        def chain = transformation(step1, step2)
+
+        when:
+        def nodes = factory.getOrCreate(artifactSet, chain, dependenciesResolver)
+        def initialNodes = factory.getOrCreate(artifactSet, transformation(step1), dependenciesResolver)
+
+        then:
+        nodes.size() == 1
+        factory.getOrCreate(artifactSet, chain, dependenciesResolver) == nodes
+        initialNodes.size() == 1
+        factory.getOrCreate(artifactSet, transformation(step1), dependenciesResolver) == initialNodes
+        initialNodes != nodes
+    }
+
+    private Transformation transformation(TransformationStep... steps) {
+        return Stub(Transformation) {
+            visitTransformationSteps(_) >> { Action action -> steps.each { action.execute(it) } }
+        }
+    }
+}
@@ -187,6 +187,24 @@ class DefaultTransformerInvokerTest extends AbstractProjectBuilderSpec {
         1 * artifactTransformListener.afterTransformerInvocation(_, _)
     }
 
+    def "records the execution time of the transform"() {
+        def primaryInput = temporaryFolder.file("input")
+        primaryInput.text = "my input"
+        def transformer = TestTransformer.create { input, outputDir ->
+            Thread.sleep(20)
+            def outputFile = new File(outputDir, input.name)
+            outputFile.text = input.text + "transformed"
+            return [outputFile]
+        }
+
+        when:
+        invoker.invoke(transformer, primaryInput, dependencies, TransformationSubject.initial(primaryInput))
+
+        then:
+        executionHistoryStore.executionHistory.size() == 1
+        executionHistoryStore.executionHistory.values().first().originMetadata.executionTime >= 20
+    }
+
     def "re-runs transform when previous execution failed"() {
         def primaryInput = temporaryFolder.file("input")
         primaryInput.text = "my input"
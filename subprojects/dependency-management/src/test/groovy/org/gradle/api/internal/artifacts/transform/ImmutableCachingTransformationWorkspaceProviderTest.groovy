@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import com.google.common.collect.ImmutableList
+import org.gradle.internal.Try
+import org.gradle.internal.execution.history.ExecutionHistoryStore
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ImmutableCachingTransformationWorkspaceProviderTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def workspaceProvider = new ImmutableCachingTransformationWorkspaceProvider(new TestTransformationWorkspaceProvider(tmpDir.file("transforms"), Mock(ExecutionHistoryStore)))
+    def action = Mock(TransformationWorkspaceProvider.TransformationWorkspaceAction)
+    def identity = Stub(TransformationWorkspaceIdentity) {
+        getIdentity() >> "first"
+    }
+
+    def "reuses successful results of previous builds"() {
+        when:
+        def result = workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * action.useWorkspace(_, _) >> { String id, TransformationWorkspaceProvider.TransformationWorkspace workspace -> transform(workspace) }
+
+        when:
+        workspaceProvider.clearInMemoryCache()
+        def nextResult = workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        0 * action._
+        nextResult.get() == result.get()
+    }
+
+    def "does not reuse failed results of previous builds"() {
+        def failure = new RuntimeException()
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * action.useWorkspace(_, _) >> Try.failure(failure)
+
+        when:
+        workspaceProvider.clearInMemoryCache()
+        workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * action.useWorkspace(_, _) >> Try.failure(failure)
+    }
+
+    def "transforms again when the workspace of a previous build has been removed"() {
+        def outputDir
+
+        when:
+        workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * action.useWorkspace(_, _) >> { String id, TransformationWorkspaceProvider.TransformationWorkspace workspace ->
+            outputDir = workspace.outputDirectory
+            transform(workspace)
+        }
+
+        when:
+        workspaceProvider.clearInMemoryCache()
+        outputDir.deleteDir()
+        workspaceProvider.withWorkspace(identity, action)
+
+        then:
+        1 * action.useWorkspace(_, _) >> { String id, TransformationWorkspaceProvider.TransformationWorkspace workspace -> transform(workspace) }
+    }
+
+    private static Try<ImmutableList<File>> transform(TransformationWorkspaceProvider.TransformationWorkspace workspace) {
+        def output = new File(workspace.outputDirectory, "output.txt")
+        output.parentFile.mkdirs()
+        output.text = "output"
+        workspace.resultsFile.parentFile.mkdirs()
+        workspace.resultsFile.text = "o/output.txt"
+        return Try.successful(ImmutableList.of(output))
+    }
+}
@@ -343,6 +343,86 @@ class DefaultAttributesSchemaTest extends Specification {
         best == [value1] as Set
     }
 
+    def "uses compatibility rules registered after the first match"() {
+        def attr = Attribute.of("a", Flavor)
+        schema.attribute(attr)
+
+        def requested = factory.of(attr, flavor('value'))
+        def candidate = factory.of(attr, flavor('otherValue'))
+
+        expect:
+        !schema.matcher().isMatching(candidate, requested)
+        schema.matcher().matches([candidate], requested) == []
+
+        when:
+        schema.attribute(attr).compatibilityRules.add(CustomCompatibilityRule)
+
+        then:
+        schema.matcher().isMatching(candidate, requested)
+        schema.matcher().matches([candidate], requested) == [candidate]
+    }
+
+    def "uses disambiguation rules registered after the first match"() {
+        def attr = Attribute.of("a", Flavor)
+        schema.attribute(attr).compatibilityRules.add(CustomCompatibilityRule)
+
+        def requested = factory.of(attr, flavor('value'))
+        def candidate1 = factory.of(attr, flavor('otherValue'))
+        def candidate2 = factory.of(attr, flavor('anotherValue'))
+
+        expect:
+        schema.matcher().matches([candidate1, candidate2], requested) == [candidate1, candidate2]
+
+        when:
+        schema.attribute(attr).disambiguationRules.add(CustomSelectionRule)
+
+        then:
+        schema.matcher().matches([candidate1, candidate2], requested).size() == 1
+    }
+
+    def "uses producer rules registered after the first match"() {
+        def producer = new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory(), SnapshotTestUtil.valueSnapshotter())
+        def attr = Attribute.of("a", Flavor)
+        schema.attribute(attr)
+        producer.attribute(attr)
+
+        def requested = factory.of(attr, flavor('value'))
+        def candidate = factory.of(attr, flavor('otherValue'))
+
+        expect:
+        !schema.withProducer(producer).isMatching(candidate, requested)
+        schema.withProducer(producer).matches([candidate], requested) == []
+
+        when:
+        producer.attribute(attr).compatibilityRules.add(CustomCompatibilityRule)
+
+        then:
+        schema.withProducer(producer).isMatching(candidate, requested)
+        schema.withProducer(producer).matches([candidate], requested) == [candidate]
+    }
+
+    def "matcher created before producer rules were registered uses them"() {
+        def producer = new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory(), SnapshotTestUtil.valueSnapshotter())
+        def attr = Attribute.of("a", Flavor)
+        schema.attribute(attr)
+        producer.attribute(attr)
+        def matcher = schema.withProducer(producer)
+
+        def requested = factory.of(attr, flavor('value'))
+        def candidate = factory.of(attr, flavor('otherValue'))
+
+        expect:
+        !matcher.isMatching(candidate, requested)
+        matcher.matches([candidate], requested) == []
+
+        when:
+        producer.attribute(attr).compatibilityRules.add(CustomCompatibilityRule)
+
+        then:
+        matcher.isMatching(candidate, requested)
+        matcher.matches([candidate], requested) == [candidate]
+    }
+
     interface Flavor extends Named {}
 
     enum MyEnum {
@@ -430,6 +430,51 @@ class ComponentAttributeMatcherTest extends Specification {
         e.message == "Unexpected type for attribute 'a' provided. Expected a value of type java.lang.String but found a value of type java.lang.Integer."
     }
 
+    def "reuses the result of previous compatibility checks"() {
+        def matcher = new ComponentAttributeMatcher()
+        def mockSchema = Mock(AttributeSelectionSchema)
+        def key1 = Attribute.of("a", String)
+
+        def requested = attributes().attribute(key1, "1")
+        def c1 = attributes().attribute(key1, "2")
+        def c2 = attributes().attribute(key1, "2")
+
+        when:
+        def matching = matcher.isMatching(mockSchema, c1, requested)
+
+        then:
+        matching
+        1 * mockSchema.matchValue(key1, "1", "2") >> true
+        0 * mockSchema.matchValue(_, _, _)
+
+        when:
+        matching = matcher.isMatching(mockSchema, c2, requested)
+        def matches = matcher.match(mockSchema, [c2], requested, null)
+
+        then:
+        matching
+        matches == [c2]
+        0 * mockSchema.matchValue(_, _, _)
+    }
+
+    def "reuses the result of previous selections when candidates have the same attributes"() {
+        def matcher = new ComponentAttributeMatcher()
+        def key1 = Attribute.of("a", String)
+        schema.attribute(key1)
+
+        def requested = attributes().attribute(key1, "1")
+        def c1 = attributes().attribute(key1, "1")
+        def c2 = attributes().attribute(key1, "2")
+        def c3 = attributes().attribute(key1, "1")
+        def c4 = attributes().attribute(key1, "2")
+
+        expect:
+        matcher.match(schema, [c1, c2], requested, null) == [c1]
+        matcher.match(schema, [c2, c1], requested, null) == [c1]
+        matcher.match(schema, [c3, c4], requested, null) == [c3]
+        matcher.match(schema, [c4, c3], requested, null) == [c3]
+    }
+
     private AttributeContainerInternal attributes() {
         factory.mutable()
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.groovy
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+
+class IncrementalGroovyCompileIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        outputs = new CompilationOutputsFixture(file("build/classes"))
+
+        buildFile << """
+            apply plugin: 'groovy'
+
+            dependencies {
+                compile localGroovy()
+            }
+
+            compileGroovy.options.incremental = true
+        """
+    }
+
+    def "recompiles changed source file and its dependents only"() {
+        file("src/main/groovy/A.groovy") << "class A { def run() { [1, 2].collect { it } } }"
+        file("src/main/groovy/B.groovy") << "class B extends A {}"
+        file("src/main/groovy/C.groovy") << "class C {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        file("src/main/groovy/A.groovy").text = "class A { def run() { [1, 2].collect { it * 2 } } }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'A$_run_closure1', 'B'
+    }
+
+    def "recompiles all classes declared in a changed source file"() {
+        file("src/main/groovy/A.groovy") << """
+            class A {}
+            class OtherA {}
+        """
+        file("src/main/groovy/B.groovy") << "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        file("src/main/groovy/A.groovy").text = """
+            class A {}
+        """
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A'
+        outputs.deletedClasses 'OtherA'
+    }
+
+    def "deletes classes of removed source file"() {
+        file("src/main/groovy/A.groovy") << "class A {}"
+        file("src/main/groovy/B.groovy") << "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        file("src/main/groovy/A.groovy").delete()
+        run "compileGroovy"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'A'
+    }
+
+    def "recompiles all source files when the compile classpath changes"() {
+        file("src/main/groovy/A.groovy") << "class A {}"
+        file("src/main/groovy/B.groovy") << "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        buildFile << """
+            dependencies {
+                compile files('lib')
+            }
+        """
+        file("lib/foo.txt") << "foo"
+        run "compileGroovy", "--info"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+        output.contains("Full recompilation is required because 'foo.txt' was changed.")
+    }
+
+    def "recompiles all source files when the task outputs are loaded from the build cache"() {
+        file("src/main/groovy/A.groovy") << "class A {}"
+        file("src/main/groovy/B.groovy") << "class B {}"
+        withBuildCache().run "compileGroovy"
+        file("build").deleteDir()
+        withBuildCache().run "compileGroovy"
+
+        when:
+        outputs.snapshot()
+        file("src/main/groovy/A.groovy").text = "class A { /* change */ }"
+        withBuildCache().run "compileGroovy", "--info"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+    }
+}
@@ -19,10 +19,15 @@ package org.gradle.api.internal.tasks.compile;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyShell;
 import groovy.lang.GroovySystem;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.InnerClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
@@ -51,6 +56,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -191,9 +197,29 @@ public class ApiGroovyCompiler implements org.gradle.language.base.internal.comp
             CompositeStoppable.stoppable(classPathLoader, astTransformClassLoader).stop();
         }
 
+        File compilationMappingFile = spec.getCompilationMappingFile();
+        if (compilationMappingFile != null) {
+            SourceClassesMappingFile.write(compilationMappingFile, getSourceClassesMapping(unit));
+        }
+
         return WorkResults.didWork(true);
     }
 
+    private static Map<File, Set<String>> getSourceClassesMapping(CompilationUnit unit) {
+        Map<File, Set<String>> mapping = Maps.newLinkedHashMap();
+        for (ModuleNode module : unit.getAST().getModules()) {
+            Set<String> classNames = Sets.newLinkedHashSet();
+            for (ClassNode classNode : module.getClasses()) {
+                // Inner classes and closures are compiled to class files named after their top level class
+                if (!(classNode instanceof InnerClassNode)) {
+                    classNames.add(classNode.getName());
+                }
+            }
+            mapping.put(new File(module.getContext().getName()), classNames);
+        }
+        return mapping;
+    }
+
     private boolean shouldProcessAnnotations(GroovyJavaJointCompileSpec spec) {
         return spec.getGroovyCompileOptions().isJavaAnnotationProcessing()
             && !spec.getAnnotationProcessorPath().isEmpty()
@@ -18,12 +18,14 @@ package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.tasks.compile.GroovyCompileOptions;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
 public class DefaultGroovyJavaJointCompileSpec extends DefaultJavaCompileSpec implements GroovyJavaJointCompileSpec {
     private GroovyCompileOptions compileOptions;
     private List<File> groovyClasspath;
+    private File compilationMappingFile;
 
     @Override
     public GroovyCompileOptions getGroovyCompileOptions() {
@@ -43,4 +45,15 @@ public class DefaultGroovyJavaJointCompileSpec extends DefaultJavaCompileSpec im
     public void setGroovyClasspath(List<File> groovyClasspath) {
         this.groovyClasspath = groovyClasspath;
     }
+
+    @Nullable
+    @Override
+    public File getCompilationMappingFile() {
+        return compilationMappingFile;
+    }
+
+    @Override
+    public void setCompilationMappingFile(@Nullable File compilationMappingFile) {
+        this.compilationMappingFile = compilationMappingFile;
+    }
 }
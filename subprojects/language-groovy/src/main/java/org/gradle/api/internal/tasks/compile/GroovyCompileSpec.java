@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.tasks.compile.GroovyCompileOptions;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
@@ -27,4 +28,12 @@ public interface GroovyCompileSpec extends JvmLanguageCompileSpec {
     List<File> getGroovyClasspath();
 
     void setGroovyClasspath(List<File> classpath);
+
+    /**
+     * The file to write the names of the classes compiled from each source file to, if any.
+     */
+    @Nullable
+    File getCompilationMappingFile();
+
+    void setCompilationMappingFile(@Nullable File compilationMappingFile);
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.PreviousCompilationOutputAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.api.tasks.incremental.InputFileDetails;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+
+/**
+ * Recompiles only the Groovy source files that changed since the previous compilation, together with the source files of the classes that depend on them.
+ *
+ * The classes compiled from each source file are recorded by the Groovy compiler, since a Groovy source file can contain any number of classes and scripts.
+ * Any change that is not a change to the Groovy source files, like a change to the compile classpath which may contain global AST transformations,
+ * requires a full recompilation.
+ */
+public class IncrementalGroovyCompiler implements Compiler<GroovyJavaJointCompileSpec> {
+    private static final Logger LOG = Logging.getLogger(IncrementalGroovyCompiler.class);
+
+    private final CleaningGroovyCompiler cleaningCompiler;
+    private final IncrementalTaskInputs inputs;
+    private final PreviousCompilationOutputAnalyzer previousCompilationOutputAnalyzer;
+    private final File sourceClassesMappingFile;
+
+    public IncrementalGroovyCompiler(CleaningGroovyCompiler cleaningCompiler, IncrementalTaskInputs inputs, PreviousCompilationOutputAnalyzer previousCompilationOutputAnalyzer, File sourceClassesMappingFile) {
+        this.cleaningCompiler = cleaningCompiler;
+        this.inputs = inputs;
+        this.previousCompilationOutputAnalyzer = previousCompilationOutputAnalyzer;
+        this.sourceClassesMappingFile = sourceClassesMappingFile;
+    }
+
+    @Override
+    public WorkResult execute(GroovyJavaJointCompileSpec spec) {
+        Timer clock = Time.startTimer();
+        File compilationMappingFile = new File(spec.getTempDir(), "compilation-source-classes-mapping.txt");
+        GFileUtils.deleteQuietly(compilationMappingFile);
+        spec.setCompilationMappingFile(compilationMappingFile);
+
+        Map<File, Set<String>> previousMapping = sourceClassesMappingFile.isFile() ? SourceClassesMappingFile.read(sourceClassesMappingFile) : null;
+        // The mapping no longer matches the classes directory when the compilation fails
+        GFileUtils.deleteQuietly(sourceClassesMappingFile);
+
+        RecompilationSpec recompilationSpec = new RecompilationSpec();
+        Set<File> sourcesToCompile = Sets.newLinkedHashSet();
+        Set<File> removedSources = Sets.newLinkedHashSet();
+        determineSourcesToCompile(spec, previousMapping, recompilationSpec, sourcesToCompile, removedSources);
+
+        if (recompilationSpec.isFullRebuildNeeded()) {
+            LOG.info("Full recompilation is required because {}. Analysis took {}.", recompilationSpec.getFullRebuildCause(), clock.getElapsed());
+            WorkResult result = cleaningCompiler.execute(spec);
+            storeSourceClassesMapping(Collections.<File, Set<String>>emptyMap(), compilationMappingFile);
+            return result;
+        }
+
+        Map<File, Set<String>> unchangedMapping = Maps.newLinkedHashMap(previousMapping);
+        Set<String> staleClasses = Sets.newLinkedHashSet();
+        for (File source : Sets.union(sourcesToCompile, removedSources)) {
+            Set<String> classNames = unchangedMapping.remove(source);
+            if (classNames != null) {
+                staleClasses.addAll(classNames);
+            }
+        }
+        boolean deletedClasses = deleteClasses(spec.getDestinationDir(), staleClasses);
+
+        if (sourcesToCompile.isEmpty()) {
+            SourceClassesMappingFile.write(sourceClassesMappingFile, unchangedMapping);
+            LOG.info("None of the classes needs to be compiled! Analysis took {}.", clock.getElapsed());
+            return WorkResults.didWork(deletedClasses);
+        }
+
+        spec.setSourceFiles(sourcesToCompile);
+        try {
+            WorkResult result = cleaningCompiler.getCompiler().execute(spec);
+            storeSourceClassesMapping(unchangedMapping, compilationMappingFile);
+            return result;
+        } finally {
+            LOG.info("Incremental compilation of {} source files completed in {}.", sourcesToCompile.size(), clock.getElapsed());
+            LOG.debug("Recompiled source files {}", sourcesToCompile);
+        }
+    }
+
+    private void determineSourcesToCompile(GroovyJavaJointCompileSpec spec, @Nullable Map<File, Set<String>> previousMapping, RecompilationSpec recompilationSpec, Set<File> sourcesToCompile, final Set<File> removedSources) {
+        if (!inputs.isIncremental()) {
+            recompilationSpec.setFullRebuildCause("no incremental change information is available. This is usually caused by clean builds or changing compiler arguments", null);
+            return;
+        }
+        if (previousMapping == null) {
+            recompilationSpec.setFullRebuildCause("no previous compilation result is available", null);
+            return;
+        }
+        if (!spec.getAnnotationProcessorPath().isEmpty() && spec.getGroovyCompileOptions().isJavaAnnotationProcessing()) {
+            recompilationSpec.setFullRebuildCause("annotation processors are applied to the Groovy stubs", null);
+            return;
+        }
+        Set<File> sources = getSourceFiles(spec);
+        for (File source : sources) {
+            if (hasExtension(source, ".java")) {
+                recompilationSpec.setFullRebuildCause("Java source files are compiled jointly with the Groovy source files", null);
+                return;
+            }
+        }
+
+        final Set<File> changedFiles = Sets.newLinkedHashSet();
+        inputs.outOfDate(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                changedFiles.add(details.getFile());
+            }
+        });
+        inputs.removed(new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails details) {
+                removedSources.add(details.getFile());
+            }
+        });
+        for (File file : changedFiles) {
+            if (!sources.contains(file)) {
+                recompilationSpec.setFullRebuildCause(null, file);
+                return;
+            }
+        }
+        for (File file : removedSources) {
+            if (!previousMapping.containsKey(file)) {
+                recompilationSpec.setFullRebuildCause(null, file);
+                return;
+            }
+        }
+        // Source files are tracked by name only, so moving a source file is not reported as a change
+        if (!previousMapping.keySet().containsAll(Sets.difference(sources, changedFiles))
+            || !Sets.union(sources, removedSources).containsAll(previousMapping.keySet())) {
+            recompilationSpec.setFullRebuildCause("the source files do not match the previous compilation", null);
+            return;
+        }
+
+        ClassSetAnalysis classAnalysis = previousCompilationOutputAnalyzer.getAnalysis(spec.getDestinationDir());
+        for (File source : Sets.union(changedFiles, removedSources)) {
+            Set<String> classNames = previousMapping.get(source);
+            if (classNames == null) {
+                continue;
+            }
+            for (String className : classNames) {
+                DependentsSet dependents = classAnalysis.getRelevantDependents(className, classAnalysis.getConstants(className));
+                if (dependents.isDependencyToAll()) {
+                    recompilationSpec.setFullRebuildCause(dependents.getDescription(), source);
+                    return;
+                }
+                recompilationSpec.getClassesToCompile().addAll(dependents.getDependentClasses());
+            }
+        }
+
+        Map<String, File> classSources = Maps.newHashMap();
+        for (Map.Entry<File, Set<String>> entry : previousMapping.entrySet()) {
+            for (String className : entry.getValue()) {
+                classSources.put(className, entry.getKey());
+            }
+        }
+        sourcesToCompile.addAll(changedFiles);
+        for (String className : recompilationSpec.getClassesToCompile()) {
+            File source = classSources.get(className);
+            if (source == null) {
+                recompilationSpec.setFullRebuildCause("the source file of class " + className + " is unknown", null);
+                return;
+            }
+            if (!removedSources.contains(source)) {
+                sourcesToCompile.add(source);
+            }
+        }
+    }
+
+    private static Set<File> getSourceFiles(GroovyJavaJointCompileSpec spec) {
+        Set<File> sources = Sets.newLinkedHashSet();
+        for (File file : spec.getSourceFiles()) {
+            for (String fileExtension : spec.getGroovyCompileOptions().getFileExtensions()) {
+                if (hasExtension(file, "." + fileExtension)) {
+                    sources.add(file);
+                    break;
+                }
+            }
+        }
+        return sources;
+    }
+
+    private void storeSourceClassesMapping(Map<File, Set<String>> unchangedMapping, File compilationMappingFile) {
+        // The compiler does not write the mapping when compile errors are ignored
+        if (!compilationMappingFile.isFile()) {
+            return;
+        }
+        Map<File, Set<String>> mapping = Maps.newLinkedHashMap(unchangedMapping);
+        mapping.putAll(SourceClassesMappingFile.read(compilationMappingFile));
+        SourceClassesMappingFile.write(sourceClassesMappingFile, mapping);
+        GFileUtils.deleteQuietly(compilationMappingFile);
+    }
+
+    private static boolean deleteClasses(File destinationDir, Set<String> classNames) {
+        Set<File> classFiles = Sets.newHashSet();
+        for (String className : classNames) {
+            int packageEnd = className.lastIndexOf('.');
+            File packageDir = packageEnd < 0 ? destinationDir : new File(destinationDir, className.substring(0, packageEnd).replace('.', '/'));
+            final String simpleName = className.substring(packageEnd + 1);
+            File[] files = packageDir.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(".class") && (name.equals(simpleName + ".class") || name.startsWith(simpleName + "$"));
+                }
+            });
+            if (files != null) {
+                Collections.addAll(classFiles, files);
+            }
+        }
+        SimpleStaleClassCleaner cleaner = new SimpleStaleClassCleaner(classFiles);
+        cleaner.addDirToClean(destinationDir);
+        cleaner.execute();
+        return cleaner.getDidWork();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the names of the top level classes compiled from each Groovy source file.
+ *
+ * Each source file is written on its own line, followed by one line per class name that is indented by a single space.
+ */
+public class SourceClassesMappingFile {
+    private static final String CLASS_NAME_PREFIX = " ";
+
+    private SourceClassesMappingFile() {
+    }
+
+    public static Map<File, Set<String>> read(File mappingFile) {
+        Map<File, Set<String>> mapping = Maps.newLinkedHashMap();
+        try {
+            Set<String> classNames = null;
+            for (String line : Files.readLines(mappingFile, Charsets.UTF_8)) {
+                if (line.startsWith(CLASS_NAME_PREFIX)) {
+                    if (classNames == null) {
+                        throw new IllegalStateException("Class name without source file in " + mappingFile);
+                    }
+                    classNames.add(line.substring(CLASS_NAME_PREFIX.length()));
+                } else {
+                    classNames = Sets.newLinkedHashSet();
+                    mapping.put(new File(line), classNames);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return mapping;
+    }
+
+    public static void write(File mappingFile, Map<File, Set<String>> mapping) {
+        try {
+            BufferedWriter writer = Files.newWriter(mappingFile, Charsets.UTF_8);
+            try {
+                for (Map.Entry<File, Set<String>> entry : mapping.entrySet()) {
+                    writer.write(entry.getKey().getAbsolutePath());
+                    writer.newLine();
+                    for (String className : entry.getValue()) {
+                        writer.write(CLASS_NAME_PREFIX);
+                        writer.write(className);
+                        writer.newLine();
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
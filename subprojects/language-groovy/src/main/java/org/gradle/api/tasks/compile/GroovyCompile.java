@@ -22,6 +22,7 @@ import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.collections.ImmutableFileCollection;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.JavaToolChainFactory;
@@ -31,17 +32,22 @@ import org.gradle.api.internal.tasks.compile.DefaultGroovyJavaJointCompileSpec;
 import org.gradle.api.internal.tasks.compile.DefaultGroovyJavaJointCompileSpecFactory;
 import org.gradle.api.internal.tasks.compile.GroovyCompilerFactory;
 import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompileSpec;
+import org.gradle.api.internal.tasks.compile.IncrementalGroovyCompiler;
+import org.gradle.api.internal.tasks.compile.incremental.IncrementalCompilerFactory;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.PreviousCompilationOutputAnalyzer;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.LocalState;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.jvm.toolchain.JavaToolChain;
@@ -66,11 +72,34 @@ public class GroovyCompile extends AbstractCompile {
     public GroovyCompile() {
         CompileOptions compileOptions = getServices().get(ObjectFactory.class).newInstance(CompileOptions.class);
         this.compileOptions = compileOptions;
+        // Incremental Groovy compilation is opt-in for now
+        compileOptions.setIncremental(false);
         CompilerForkUtils.doNotCacheIfForkingViaExecutable(compileOptions, getOutputs());
     }
 
-    @Override
+    /**
+     * Compiles the source files, only recompiling the changed Groovy source files and the source files of their dependents when
+     * {@link CompileOptions#isIncremental() incremental compilation} is enabled.
+     *
+     * @since 5.2
+     */
     @TaskAction
+    protected void compile(IncrementalTaskInputs inputs) {
+        checkGroovyClasspathIsNonEmpty();
+        DefaultGroovyJavaJointCompileSpec spec = createSpec();
+        Compiler<GroovyJavaJointCompileSpec> compiler = getCompiler(spec);
+        if (compileOptions.isIncremental() && compiler instanceof CleaningGroovyCompiler) {
+            PreviousCompilationOutputAnalyzer previousCompilationOutputAnalyzer = getIncrementalCompilerFactory().createPreviousCompilationOutputAnalyzer();
+            compiler = new IncrementalGroovyCompiler((CleaningGroovyCompiler) compiler, inputs, previousCompilationOutputAnalyzer, getSourceClassesMappingFile());
+        } else {
+            // The mapping is only maintained by incremental compilation
+            GFileUtils.deleteQuietly(getSourceClassesMappingFile());
+        }
+        WorkResult result = compiler.execute(spec);
+        setDidWork(result.getDidWork());
+    }
+
+    @Override
     protected void compile() {
         checkGroovyClasspathIsNonEmpty();
         DefaultGroovyJavaJointCompileSpec spec = createSpec();
@@ -192,6 +221,16 @@ public class GroovyCompile extends AbstractCompile {
         this.groovyClasspath = groovyClasspath;
     }
 
+    /**
+     * The names of the classes compiled from each Groovy source file, as recorded by incremental compilation.
+     *
+     * @since 5.2
+     */
+    @LocalState
+    protected File getSourceClassesMappingFile() {
+        return getServices().get(TemporaryFileProvider.class).newTemporaryFile(getName(), "source-classes-mapping.txt");
+    }
+
     @Internal
     public Compiler<GroovyJavaJointCompileSpec> getCompiler() {
         return getCompiler(createSpec());
@@ -201,6 +240,14 @@ public class GroovyCompile extends AbstractCompile {
         this.compiler = compiler;
     }
 
+    /**
+     * @since 5.2
+     */
+    @Inject
+    protected IncrementalCompilerFactory getIncrementalCompilerFactory() {
+        throw new UnsupportedOperationException();
+    }
+
     @Inject
     protected JavaToolChainFactory getJavaToolChainFactory() {
         throw new UnsupportedOperationException();
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import it.unimi.dsi.fastutil.ints.IntSets
+import org.gradle.api.Action
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.recomp.PreviousCompilationOutputAnalyzer
+import org.gradle.api.tasks.WorkResults
+import org.gradle.api.tasks.compile.GroovyCompileOptions
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class IncrementalGroovyCompilerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def cleaningCompiler = Mock(CleaningGroovyCompiler)
+    def compiler = Mock(Compiler)
+    def inputs = Mock(IncrementalTaskInputs)
+    def previousCompilationOutputAnalyzer = Mock(PreviousCompilationOutputAnalyzer)
+    def classAnalysis = Mock(ClassSetAnalysis)
+    def spec = new DefaultGroovyJavaJointCompileSpec()
+    def changedFiles = []
+    def removedFiles = []
+    def dependents = [:]
+
+    TestFile classesDir
+    TestFile mappingFile
+    TestFile a
+    TestFile b
+    TestFile c
+
+    def incrementalCompiler
+
+    def setup() {
+        classesDir = temp.createDir("classes")
+        mappingFile = temp.file("tmp/source-classes-mapping.txt")
+        a = temp.createFile("src/org/A.groovy")
+        b = temp.createFile("src/org/B.groovy")
+        c = temp.createFile("src/org/C.groovy")
+        classesDir.createFile("org/A.class")
+        classesDir.createFile('org/A$_closure1.class')
+        classesDir.createFile("org/B.class")
+        classesDir.createFile("org/C.class")
+        SourceClassesMappingFile.write(mappingFile, [(a): ["org.A"] as Set, (b): ["org.B"] as Set, (c): ["org.C"] as Set])
+
+        spec.sourceFiles = [a, b, c]
+        spec.destinationDir = classesDir
+        spec.tempDir = temp.createDir("tmp")
+        spec.annotationProcessorPath = []
+        spec.groovyCompileOptions = new GroovyCompileOptions()
+
+        _ * cleaningCompiler.compiler >> compiler
+        _ * inputs.incremental >> true
+        _ * inputs.outOfDate(_) >> { Action<InputFileDetails> action -> changedFiles.each { action.execute(details(it)) } }
+        _ * inputs.removed(_) >> { Action<InputFileDetails> action -> removedFiles.each { action.execute(details(it)) } }
+        _ * previousCompilationOutputAnalyzer.getAnalysis(classesDir) >> classAnalysis
+        _ * classAnalysis.getConstants(_) >> IntSets.EMPTY_SET
+        _ * classAnalysis.getRelevantDependents(_, _) >> { String className, constants -> dependents[className] ?: DependentsSet.empty() }
+        incrementalCompiler = new IncrementalGroovyCompiler(cleaningCompiler, inputs, previousCompilationOutputAnalyzer, mappingFile)
+    }
+
+    def "recompiles changed source files and the source files of their dependents"() {
+        given:
+        changedFiles << a
+        dependents["org.A"] = DependentsSet.dependents("org.B")
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * compiler.execute(spec) >> {
+            assert spec.sourceFiles as Set == [a, b] as Set
+            assert !classesDir.file("org/A.class").exists()
+            assert !classesDir.file('org/A$_closure1.class').exists()
+            assert !classesDir.file("org/B.class").exists()
+            assert classesDir.file("org/C.class").exists()
+            SourceClassesMappingFile.write(spec.compilationMappingFile, [(a): ["org.A", "org.D"] as Set, (b): ["org.B"] as Set])
+            WorkResults.didWork(true)
+        }
+        0 * cleaningCompiler.execute(_)
+
+        and:
+        SourceClassesMappingFile.read(mappingFile) == [(c): ["org.C"] as Set, (a): ["org.A", "org.D"] as Set, (b): ["org.B"] as Set]
+    }
+
+    def "deletes the classes of removed source files"() {
+        given:
+        removedFiles << c
+        spec.sourceFiles = [a, b]
+
+        when:
+        def result = incrementalCompiler.execute(spec)
+
+        then:
+        0 * compiler.execute(_)
+        0 * cleaningCompiler.execute(_)
+        result.didWork
+        !classesDir.file("org/C.class").exists()
+        classesDir.file("org/A.class").exists()
+        SourceClassesMappingFile.read(mappingFile) == [(a): ["org.A"] as Set, (b): ["org.B"] as Set]
+    }
+
+    def "recompiles all source files when a classpath entry changed"() {
+        given:
+        changedFiles << temp.createFile("lib.jar")
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * cleaningCompiler.execute(spec) >> {
+            SourceClassesMappingFile.write(spec.compilationMappingFile, [(a): ["org.A"] as Set])
+            WorkResults.didWork(true)
+        }
+        0 * compiler.execute(_)
+
+        and:
+        SourceClassesMappingFile.read(mappingFile) == [(a): ["org.A"] as Set]
+    }
+
+    def "recompiles all source files when there is no previous compilation result"() {
+        given:
+        changedFiles << a
+        mappingFile.delete()
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * cleaningCompiler.execute(spec)
+        0 * compiler.execute(_)
+    }
+
+    def "recompiles all source files when a source file was moved"() {
+        given:
+        changedFiles << a
+        spec.sourceFiles = [a, b, temp.createFile("src/other/C.groovy")]
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * cleaningCompiler.execute(spec)
+        0 * compiler.execute(_)
+    }
+
+    def "recompiles all source files when the source file of a dependent is unknown"() {
+        given:
+        changedFiles << a
+        dependents["org.A"] = DependentsSet.dependents("org.Unknown")
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * cleaningCompiler.execute(spec)
+        0 * compiler.execute(_)
+    }
+
+    def "recompiles all source files when Java source files are compiled jointly"() {
+        given:
+        changedFiles << a
+        spec.sourceFiles = [a, b, c, temp.createFile("src/org/D.java")]
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * cleaningCompiler.execute(spec)
+        0 * compiler.execute(_)
+    }
+
+    def "does not keep the mapping when the compilation fails"() {
+        given:
+        changedFiles << a
+
+        when:
+        incrementalCompiler.execute(spec)
+
+        then:
+        1 * compiler.execute(spec) >> { throw new CompilationFailedException() }
+        thrown(CompilationFailedException)
+        !mappingFile.exists()
+    }
+
+    private static InputFileDetails details(File file) {
+        return [getFile: { file }] as InputFileDetails
+    }
+}
@@ -45,6 +45,11 @@ class JavaCompilerContinuousIntegrationTest extends AbstractCompilerContinuousIn
         return "public class Foo { String bar; }"
     }
 
+    @Override
+    boolean isCompilerDaemonsKeptAcrossBuilds() {
+        true
+    }
+
     @Override
     String getApplyAndConfigure() {
         return """
@@ -48,7 +48,8 @@ public class DaemonJavaCompiler extends AbstractDaemonCompiler<JavaCompileSpec>
         return new DaemonForkOptionsBuilder(fileResolver)
             .javaForkOptions(javaForkOptions)
             .sharedPackages(SHARED_PACKAGES)
-            .keepAliveMode(KeepAliveMode.SESSION)
+            // Annotation processors get a fresh class loader for each compilation, so compiler daemons can be reused by later builds and stay warm
+            .keepAliveMode(KeepAliveMode.DAEMON)
             .build();
     }
 }
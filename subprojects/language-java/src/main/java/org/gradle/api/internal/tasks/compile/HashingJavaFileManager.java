@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.ForwardingJavaFileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Hashes the class files written by the compiler while they are being written, so that their hashes are known without reading them again.
+ * Enabled with {@value #SYSPROP}.
+ */
+class HashingJavaFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+    static final String SYSPROP = "org.gradle.internal.java.compile.hashOutputs";
+
+    private final Map<File, HashCode> classFileHashes;
+
+    HashingJavaFileManager(JavaFileManager fileManager, Map<File, HashCode> classFileHashes) {
+        super(fileManager);
+        this.classFileHashes = classFileHashes;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(SYSPROP);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+        JavaFileObject file = super.getJavaFileForOutput(location, className, kind, sibling);
+        if (kind != JavaFileObject.Kind.CLASS || !"file".equals(file.toUri().getScheme())) {
+            return file;
+        }
+        return new HashingJavaFileObject(file);
+    }
+
+    private class HashingJavaFileObject extends ForwardingJavaFileObject<JavaFileObject> {
+        HashingJavaFileObject(JavaFileObject fileObject) {
+            super(fileObject);
+        }
+
+        @Override
+        public OutputStream openOutputStream() throws IOException {
+            final File file = new File(toUri());
+            final HashingOutputStream hashingStream = new HashingOutputStream(Hashing.defaultFunction(), super.openOutputStream());
+            return new FilterOutputStream(hashingStream) {
+                private boolean closed;
+
+                @Override
+                public void write(byte[] bytes, int off, int len) throws IOException {
+                    out.write(bytes, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    super.close();
+                    classFileHashes.put(file, hashingStream.hash());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.os.OperatingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps javac file managers around between compilations, so that the jars on the class path don't need to be
+ * opened and indexed again by every compilation. Enabled with {@value #SYSPROP}.
+ *
+ * File managers are only reused on Java 9 and later, where javac keeps the index of each jar with its file manager rather
+ * than in a global cache, and not on Windows, where the open jars would prevent them from being deleted or rewritten.
+ * A file manager is discarded when a jar it has seen has changed since, or when a compilation uses options that change
+ * its platform class path or module locations.
+ */
+class JdkFileManagerPool {
+    static final String SYSPROP = "org.gradle.internal.java.compile.reuseFileManagers";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdkFileManagerPool.class);
+    private static final JdkFileManagerPool INSTANCE = new JdkFileManagerPool(
+        Boolean.getBoolean(SYSPROP) && JavaVersion.current().isJava9Compatible() && !OperatingSystem.current().isWindows()
+    );
+
+    private static final int MAX_IDLE_FILE_MANAGERS = 4;
+    private static final int MAX_JARS_PER_FILE_MANAGER = 2000;
+    private static final Set<String> NON_REUSABLE_OPTIONS = new HashSet<String>(Arrays.asList(
+        "-bootclasspath", "--boot-class-path", "-extdirs", "--extension-directories", "-endorseddirs", "--endorsed-directories",
+        "--release", "--system", "--module-path", "-p", "--upgrade-module-path", "--module-source-path", "--patch-module"
+    ));
+    private static final StandardLocation[] RESET_LOCATIONS = {
+        StandardLocation.CLASS_PATH,
+        StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH,
+        StandardLocation.CLASS_OUTPUT,
+        StandardLocation.SOURCE_OUTPUT,
+        StandardLocation.NATIVE_HEADER_OUTPUT
+    };
+
+    private final boolean enabled;
+    private final Deque<PooledFileManager> idle = new ArrayDeque<PooledFileManager>();
+
+    JdkFileManagerPool(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    static JdkFileManagerPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a file manager for the given compilation. Closing the returned lease returns the file manager to the pool, or closes it.
+     */
+    Lease acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, List<File> classpath) {
+        if (!enabled || !isReusable(options)) {
+            return new Lease(null, compiler.getStandardFileManager(null, null, charset), false);
+        }
+
+        PooledFileManager pooled = takeIdle(compiler, charset, classpath);
+        if (pooled == null) {
+            pooled = new PooledFileManager(compiler.getClass(), charset, compiler.getStandardFileManager(null, null, charset));
+        }
+        pooled.recordJars(classpath);
+        return new Lease(pooled, pooled.fileManager, true);
+    }
+
+    private static boolean isReusable(List<String> options) {
+        for (String option : options) {
+            if (NON_REUSABLE_OPTIONS.contains(option) || option.startsWith("-Xbootclasspath") || option.startsWith("--patch-module=")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private PooledFileManager takeIdle(JavaCompiler compiler, @Nullable Charset charset, List<File> classpath) {
+        List<PooledFileManager> stale = new ArrayList<PooledFileManager>();
+        PooledFileManager match = null;
+        synchronized (idle) {
+            Iterator<PooledFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledFileManager candidate = iterator.next();
+                if (candidate.compilerType == compiler.getClass() && equal(candidate.charset, charset)) {
+                    iterator.remove();
+                    if (candidate.hasChangedJars(classpath) || !candidate.resetLocations()) {
+                        stale.add(candidate);
+                    } else {
+                        match = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        CompositeStoppable.stoppable(stale).stop();
+        return match;
+    }
+
+    private void release(PooledFileManager pooled) {
+        if (pooled.jars.size() > MAX_JARS_PER_FILE_MANAGER) {
+            pooled.close();
+            return;
+        }
+        PooledFileManager evicted = null;
+        synchronized (idle) {
+            idle.addFirst(pooled);
+            if (idle.size() > MAX_IDLE_FILE_MANAGERS) {
+                evicted = idle.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    private static boolean equal(@Nullable Charset a, @Nullable Charset b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    class Lease implements Closeable {
+        private final PooledFileManager pooled;
+        private final StandardJavaFileManager fileManager;
+        private final boolean reusable;
+        private boolean reuse;
+
+        private Lease(@Nullable PooledFileManager pooled, StandardJavaFileManager fileManager, boolean reusable) {
+            this.pooled = pooled;
+            this.fileManager = fileManager;
+            this.reusable = reusable;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        /**
+         * Marks the file manager as safe to reuse, which is the case when the compiler has finished normally.
+         */
+        void compilationFinished() {
+            reuse = reusable;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reuse) {
+                fileManager.flush();
+                release(pooled);
+            } else {
+                fileManager.close();
+            }
+        }
+    }
+
+    private static class PooledFileManager implements Closeable {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final StandardJavaFileManager fileManager;
+        // The jars this file manager may have indexed, with their length and modification time when first seen
+        private final Map<File, JarState> jars = new HashMap<File, JarState>();
+
+        PooledFileManager(Class<?> compilerType, @Nullable Charset charset, StandardJavaFileManager fileManager) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.fileManager = fileManager;
+        }
+
+        boolean hasChangedJars(List<File> classpath) {
+            for (File file : classpath) {
+                JarState previous = jars.get(file);
+                if (previous != null && !previous.equals(JarState.of(file))) {
+                    LOGGER.debug("Not reusing javac file manager as {} has changed.", file);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void recordJars(List<File> classpath) {
+            for (File file : classpath) {
+                if (!jars.containsKey(file) && file.isFile()) {
+                    jars.put(file, JarState.of(file));
+                }
+            }
+        }
+
+        boolean resetLocations() {
+            try {
+                for (StandardLocation location : RESET_LOCATIONS) {
+                    fileManager.setLocation(location, null);
+                }
+                return true;
+            } catch (Exception e) {
+                LOGGER.debug("Not reusing javac file manager as its locations could not be reset.", e);
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close javac file manager.", e);
+            }
+        }
+    }
+
+    private static class JarState {
+        private final long length;
+        private final long lastModified;
+
+        private JarState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static JarState of(File file) {
+            return new JarState(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            JarState jarState = (JarState) o;
+            return length == jarState.length && lastModified == jarState.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (length ^ (length >>> 32)) + (int) (lastModified ^ (lastModified >>> 32));
+        }
+    }
+}
@@ -17,11 +17,17 @@
 package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingResult;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.workers.internal.DefaultWorkResult;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
 public class JdkJavaCompilerResult extends DefaultWorkResult {
 
     private final AnnotationProcessingResult annotationProcessingResult = new AnnotationProcessingResult();
+    private final Map<File, HashCode> classFileHashes = new HashMap<File, HashCode>();
 
     JdkJavaCompilerResult() {
         super(true, null);
@@ -30,4 +36,11 @@ public class JdkJavaCompilerResult extends DefaultWorkResult {
     public AnnotationProcessingResult getAnnotationProcessingResult() {
         return annotationProcessingResult;
     }
+
+    /**
+     * The hashes of the class files written by the compiler, when enabled with {@value HashingJavaFileManager#SYSPROP}.
+     */
+    public Map<File, HashCode> getClassFileHashes() {
+        return classFileHashes;
+    }
 }
@@ -21,7 +21,6 @@ import org.gradle.internal.concurrent.CompositeStoppable;
 import javax.annotation.processing.Processor;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
-import javax.tools.StandardJavaFileManager;
 import java.nio.charset.Charset;
 import java.util.Locale;
 
@@ -30,11 +29,11 @@ import java.util.Locale;
  */
 class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
     private final JavaCompiler.CompilationTask delegate;
-    private final StandardJavaFileManager fileManager;
+    private final JdkFileManagerPool.Lease fileManagerLease;
 
-    ResourceCleaningCompilationTask(JavaCompiler.CompilationTask delegate, StandardJavaFileManager fileManager) {
+    ResourceCleaningCompilationTask(JavaCompiler.CompilationTask delegate, JdkFileManagerPool.Lease fileManagerLease) {
         this.delegate = delegate;
-        this.fileManager = fileManager;
+        this.fileManagerLease = fileManagerLease;
     }
 
     @Override
@@ -54,9 +53,11 @@ class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
     @Override
     public Boolean call() {
         try {
-            return delegate.call();
+            Boolean result = delegate.call();
+            fileManagerLease.compilationFinished();
+            return result;
         } finally {
-            CompositeStoppable.stoppable(fileManager).stop();
+            CompositeStoppable.stoppable(fileManagerLease).stop();
             cleanupZipCache();
         }
     }
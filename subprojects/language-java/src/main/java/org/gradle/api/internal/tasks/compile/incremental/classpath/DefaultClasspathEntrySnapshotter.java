@@ -15,9 +15,16 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.changedetection.state.ResourceHasher;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
@@ -27,27 +34,53 @@ import org.gradle.api.logging.Logging;
 import org.gradle.internal.IoActions;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class DefaultClasspathEntrySnapshotter {
     private static final Logger LOGGER = Logging.getLogger(DefaultClasspathEntrySnapshotter.class);
+    // Used for classes that can never be referenced from outside the classpath entry, e.g. private inner and anonymous classes
+    private static final HashCode NON_ABI_CLASS_HASH = Hashing.signature(DefaultClasspathEntrySnapshotter.class);
+    // Entries with more classes than this are analyzed in parallel, in batches of this size
+    private static final int CLASSES_PER_BATCH = 500;
 
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final ResourceHasher abiHasher;
+    private final BuildOperationExecutor buildOperationExecutor;
 
-    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    /**
+     * @param abiHasher used to record the hash of the ABI of each class, so that changes to method bodies or private members do not
+     * mark a class as changed. When null, the hash of the class file is recorded.
+     */
+    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, @Nullable ResourceHasher abiHasher, BuildOperationExecutor buildOperationExecutor) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.abiHasher = abiHasher;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry) {
@@ -66,76 +99,244 @@ public class DefaultClasspathEntrySnapshotter {
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) throws IOException {
         if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
+            // java.util.zip.ZipFile can be read from multiple threads, so the entries of the jar are analyzed directly from it
+            ZipFile zipFile = new ZipFile(classpathEntry);
+            try {
+                analyze(classpathEntry, jarClassFiles(classpathEntry, zipFile), hashes, accumulator);
+            } finally {
+                zipFile.close();
+            }
         }
         if (classpathEntry.isDirectory()) {
-            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
+            analyze(classpathEntry, directoryClassFiles(classpathEntry), hashes, accumulator);
+        }
+    }
+
+    private List<ClassFile> jarClassFiles(File jar, ZipFile zipFile) {
+        // Visit the entries in alphabetical order, so that the same class is picked when a jar contains duplicates
+        Map<String, ZipEntry> entriesByName = new TreeMap<String, ZipEntry>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+                entriesByName.put(entry.getName(), entry);
+            }
+        }
+        List<ClassFile> classFiles = Lists.newArrayListWithCapacity(entriesByName.size());
+        for (ZipEntry entry : entriesByName.values()) {
+            classFiles.add(new JarClassFile(new JarEntryElement(jar, zipFile, entry)));
         }
+        return classFiles;
     }
 
-    private abstract class EntryVisitor implements FileVisitor {
-        private final ClassDependentsAccumulator accumulator;
-        private final Map<String, HashCode> hashes;
+    private List<ClassFile> directoryClassFiles(File directory) {
+        final List<ClassFile> classFiles = Lists.newArrayList();
+        fileOperations.fileTree(directory).visit(new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+            }
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            this.accumulator = accumulator;
-            this.hashes = hashes;
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                if (fileDetails.getName().endsWith(".class")) {
+                    classFiles.add(new DirectoryClassFile(fileDetails));
+                }
+            }
+        });
+        return classFiles;
+    }
+
+    private void analyze(final File classpathEntry, List<ClassFile> classFiles, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+        if (classFiles.size() <= CLASSES_PER_BATCH) {
+            for (ClassFile classFile : classFiles) {
+                classFile.analyze();
+            }
+        } else {
+            final List<List<ClassFile>> batches = Lists.partition(classFiles, CLASSES_PER_BATCH);
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<AnalyzeClassFiles>>() {
+                @Override
+                public void execute(BuildOperationQueue<AnalyzeClassFiles> buildOperationQueue) {
+                    for (List<ClassFile> batch : batches) {
+                        buildOperationQueue.add(new AnalyzeClassFiles(classpathEntry, batch));
+                    }
+                }
+            });
         }
 
-        public void visitDir(FileVisitDetails dirDetails) {
+        // Merge the results in visiting order, so that the outcome does not depend on how the analysis was scheduled
+        for (ClassFile classFile : classFiles) {
+            ClassAnalysis analysis = classFile.analysis;
+            if (analysis == null) {
+                accumulator.fullRebuildNeeded(classFile.element.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
+            } else {
+                accumulator.addClass(analysis);
+                hashes.put(analysis.getClassName(), classFile.hash);
+            }
         }
+    }
+
+    private static class AnalyzeClassFiles implements RunnableBuildOperation {
+        private final File classpathEntry;
+        private final List<ClassFile> classFiles;
 
-        public void visitFile(FileVisitDetails fileDetails) {
-            if (!fileDetails.getName().endsWith(".class")) {
-                return;
+        private AnalyzeClassFiles(File classpathEntry, List<ClassFile> classFiles) {
+            this.classpathEntry = classpathEntry;
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            for (ClassFile classFile : classFiles) {
+                classFile.analyze();
             }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Analyze classes in " + classpathEntry);
+        }
+    }
+
+    private abstract class ClassFile {
+        final FileTreeElement element;
+        // Written by the thread that analyzes the class, read once all classes of the entry have been analyzed
+        ClassAnalysis analysis;
+        HashCode hash;
 
-            HashCode classFileHash = getHashCode(fileDetails);
+        ClassFile(FileTreeElement element) {
+            this.element = element;
+        }
+
+        void analyze() {
+            HashCode classFileHash = getHashCode();
 
             try {
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
-                accumulator.addClass(analysis);
-                hashes.put(analysis.getClassName(), classFileHash);
+                analysis = analyzer.getClassAnalysis(classFileHash, element);
+                hash = abiHasher == null ? classFileHash : getAbiHash(classFileHash);
             } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
+                analysis = null;
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
+                    LOGGER.debug("Could not analyze " + element.getName() + " for incremental compilation", e);
                 }
             }
         }
 
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
+        private HashCode getAbiHash(HashCode classFileHash) {
+            try {
+                HashCode abiHash = hashAbi(classFileHash);
+                return abiHash == null ? NON_ABI_CLASS_HASH : abiHash;
+            } catch (Exception e) {
+                LOGGER.debug("Could not extract the ABI of {}. Falling back to the hash of the class file.", element.getName(), e);
+                return classFileHash;
+            }
+        }
+
+        protected abstract HashCode getHashCode();
+
+        @Nullable
+        protected abstract HashCode hashAbi(HashCode classFileHash) throws IOException;
     }
 
-    private class JarEntryVisitor extends EntryVisitor {
+    private class JarClassFile extends ClassFile {
 
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        JarClassFile(JarEntryElement element) {
+            super(element);
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            InputStream inputStream = fileDetails.open();
+        protected HashCode getHashCode() {
+            InputStream inputStream = element.open();
             try {
                 return hasher.hash(inputStream);
             } finally {
                 IoActions.closeQuietly(inputStream);
             }
         }
+
+        @Nullable
+        @Override
+        protected HashCode hashAbi(HashCode classFileHash) throws IOException {
+            InputStream inputStream = element.open();
+            try {
+                return abiHasher.hash(new ZipEntry(element.getPath()), inputStream);
+            } finally {
+                IoActions.closeQuietly(inputStream);
+            }
+        }
     }
 
-    private class DirectoryEntryVisitor extends EntryVisitor {
+    private class DirectoryClassFile extends ClassFile {
+
+        DirectoryClassFile(FileVisitDetails fileDetails) {
+            super(fileDetails);
+        }
 
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        @Override
+        protected HashCode getHashCode() {
+            return fileHasher.hash(element);
         }
 
+        @Nullable
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails);
+        protected HashCode hashAbi(HashCode classFileHash) {
+            // Goes through the resource hash cache when the hasher is caching, so classes that were already hashed for compile avoidance are not read again
+            File file = element.getFile();
+            return abiHasher.hash(new RegularFileSnapshot(file.getAbsolutePath(), file.getName(), classFileHash, element.getLastModified()));
         }
     }
 
+    private static class JarEntryElement extends AbstractFileTreeElement {
+        private final File jar;
+        private final ZipFile zipFile;
+        private final ZipEntry entry;
+
+        JarEntryElement(File jar, ZipFile zipFile, ZipEntry entry) {
+            // Never copied to the file system, so no chmod is needed
+            super(null);
+            this.jar = jar;
+            this.zipFile = zipFile;
+            this.entry = entry;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return String.format("zip entry %s!%s", jar, entry.getName());
+        }
+
+        @Override
+        public File getFile() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public long getLastModified() {
+            return entry.getTime();
+        }
+
+        @Override
+        public long getSize() {
+            return entry.getSize();
+        }
+
+        @Override
+        public InputStream open() {
+            try {
+                return zipFile.getInputStream(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public RelativePath getRelativePath() {
+            return new RelativePath(true, entry.getName().split("/"));
+        }
+    }
 }
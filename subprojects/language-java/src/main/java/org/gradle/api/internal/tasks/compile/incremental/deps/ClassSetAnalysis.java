@@ -22,7 +22,15 @@ import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +39,8 @@ public class ClassSetAnalysis {
     private final ClassSetAnalysisData classAnalysis;
     private final AnnotationProcessingData annotationProcessingData;
     private final ImmutableSetMultimap<String, String> dependenciesFromAnnotationProcessing;
+    // The same for every changed class, so only computed once
+    private Set<String> dependentsOfGeneratedAggregatingTypes;
 
     public ClassSetAnalysis(ClassSetAnalysisData classAnalysis) {
         this(classAnalysis, new AnnotationProcessingData());
@@ -91,11 +101,20 @@ public class ClassSetAnalysis {
         }
         Set<String> result = new HashSet<String>();
         recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
-        recurseDependents(new HashSet<String>(), result, dependingOnAllOthers);
+        result.addAll(getDependentsOfGeneratedAggregatingTypes());
         result.remove(className);
         return DependentsSet.dependents(result);
     }
 
+    private Set<String> getDependentsOfGeneratedAggregatingTypes() {
+        if (dependentsOfGeneratedAggregatingTypes == null) {
+            Set<String> result = new HashSet<String>();
+            recurseDependents(new HashSet<String>(), result, annotationProcessingData.getGeneratedTypesDependingOnAllOthers());
+            dependentsOfGeneratedAggregatingTypes = ImmutableSet.copyOf(result);
+        }
+        return dependentsOfGeneratedAggregatingTypes;
+    }
+
     public Set<String> getTypesToReprocess() {
         return annotationProcessingData.getAggregatedTypes();
     }
@@ -131,6 +150,121 @@ public class ClassSetAnalysis {
         return DependentsSet.dependents(Sets.union(dependents.getDependentClasses(), additionalDeps));
     }
 
+    /**
+     * Partitions the analyzed classes into batches, so that the classes of a batch only depend on classes of the same or an earlier batch.
+     * Classes that depend on each other, directly or through a cycle, are in the same batch. Nested classes are kept with their top level class,
+     * as they come from the same source file.
+     *
+     * <p>This is experimental and not used for compilation yet. When the dependencies are not precise enough, because a class is a dependency
+     * to all others or annotation processing requires a full rebuild, a single batch with all classes is returned.</p>
+     */
+    public List<Set<String>> getCompilationBatches() {
+        Set<String> classes = new LinkedHashSet<String>();
+        Map<String, Set<String>> dependentsByClass = new HashMap<String, Set<String>>();
+        boolean precise = annotationProcessingData.getFullRebuildCause() == null && annotationProcessingData.getGeneratedTypesDependingOnAllOthers().isEmpty();
+        for (String cls : classAnalysis.getClasses()) {
+            String topLevelClass = getTopLevelClass(cls);
+            classes.add(topLevelClass);
+            DependentsSet dependents = getDependents(cls);
+            if (dependents.isDependencyToAll()) {
+                precise = false;
+                continue;
+            }
+            for (String dependent : dependents.getDependentClasses()) {
+                String topLevelDependent = getTopLevelClass(dependent);
+                if (!topLevelDependent.equals(topLevelClass)) {
+                    classes.add(topLevelDependent);
+                    Set<String> topLevelDependents = dependentsByClass.get(topLevelClass);
+                    if (topLevelDependents == null) {
+                        topLevelDependents = new LinkedHashSet<String>();
+                        dependentsByClass.put(topLevelClass, topLevelDependents);
+                    }
+                    topLevelDependents.add(topLevelDependent);
+                }
+            }
+        }
+        if (classes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!precise) {
+            return Collections.<Set<String>>singletonList(classes);
+        }
+        List<Set<String>> batches = stronglyConnectedComponents(classes, dependentsByClass);
+        // Components are found dependents first
+        Collections.reverse(batches);
+        return batches;
+    }
+
+    /**
+     * Tarjan's algorithm, without recursion so that long dependency chains do not overflow the stack.
+     * A component is only added to the result after all components reachable from it.
+     */
+    private static List<Set<String>> stronglyConnectedComponents(Set<String> nodes, Map<String, Set<String>> edges) {
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+        Deque<String> componentStack = new ArrayDeque<String>();
+        Set<String> onComponentStack = new HashSet<String>();
+        List<Set<String>> components = new ArrayList<Set<String>>();
+
+        for (String root : nodes) {
+            if (indexes.containsKey(root)) {
+                continue;
+            }
+            Deque<String> path = new ArrayDeque<String>();
+            Deque<Iterator<String>> successors = new ArrayDeque<Iterator<String>>();
+            String next = root;
+            while (true) {
+                if (next != null) {
+                    int index = indexes.size();
+                    indexes.put(next, index);
+                    lowLinks.put(next, index);
+                    componentStack.push(next);
+                    onComponentStack.add(next);
+                    path.push(next);
+                    Set<String> nodeEdges = edges.get(next);
+                    successors.push(nodeEdges == null ? Collections.<String>emptyIterator() : nodeEdges.iterator());
+                    next = null;
+                }
+                if (path.isEmpty()) {
+                    break;
+                }
+                String node = path.peek();
+                Iterator<String> iterator = successors.peek();
+                if (iterator.hasNext()) {
+                    String successor = iterator.next();
+                    if (!indexes.containsKey(successor)) {
+                        next = successor;
+                    } else if (onComponentStack.contains(successor)) {
+                        lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(successor)));
+                    }
+                    continue;
+                }
+                path.pop();
+                successors.pop();
+                if (!path.isEmpty()) {
+                    String parent = path.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+                }
+                if (lowLinks.get(node).equals(indexes.get(node))) {
+                    Set<String> component = new LinkedHashSet<String>();
+                    String member;
+                    do {
+                        member = componentStack.pop();
+                        onComponentStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(node));
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    private static String getTopLevelClass(String className) {
+        int nestedSeparator = className.indexOf('$');
+        return nestedSeparator < 0 ? className : className.substring(0, nestedSeparator);
+    }
+
     private boolean isNestedClass(String d) {
         return d.contains("$");
     }
@@ -29,8 +29,10 @@ import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -51,6 +53,10 @@ public class ClassSetAnalysisData {
         this.fullRebuildCause = fullRebuildCause;
     }
 
+    public Set<String> getClasses() {
+        return classes;
+    }
+
     public DependentsSet getDependents(String className) {
         if (fullRebuildCause != null) {
             return DependentsSet.dependencyToAll(fullRebuildCause);
@@ -97,16 +103,18 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
+            // Class names are assigned consecutive ids starting at 1, in the order they are first written
+            List<String> classNameMap = new ArrayList<String>();
+            classNameMap.add(null);
 
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+            ImmutableSet.Builder<String> classes = ImmutableSet.builderWithExpectedSize(count);
             for (int i = 0; i < count; i++) {
                 classes.add(readClassName(decoder, classNameMap));
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
+            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builderWithExpectedSize(count);
             for (int i = 0; i < count; i++) {
                 String className = readClassName(decoder, classNameMap);
                 DependentsSet dependents = readDependentsSet(decoder, classNameMap);
@@ -114,7 +122,7 @@ public class ClassSetAnalysisData {
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
+            ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builderWithExpectedSize(count);
             for (int i = 0; i < count; i++) {
                 String className = readClassName(decoder, classNameMap);
                 IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
@@ -122,11 +130,11 @@ public class ClassSetAnalysisData {
             }
 
             count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
+            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builderWithExpectedSize(count);
             for (int i = 0; i < count; i++) {
                 String parent = readClassName(decoder, classNameMap);
                 int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
+                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builderWithExpectedSize(nameCount);
                 for (int j = 0; j < nameCount; j++) {
                     namesBuilder.add(readClassName(decoder, classNameMap));
                 }
@@ -170,13 +178,13 @@ public class ClassSetAnalysisData {
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
+        private DependentsSet readDependentsSet(Decoder decoder, List<String> classNameMap) throws IOException {
             byte b = decoder.readByte();
             if (b == 1) {
                 return DependentsSet.dependencyToAll(decoder.readNullableString());
             }
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            ImmutableSet.Builder<String> builder = ImmutableSet.builderWithExpectedSize(count);
             for (int i = 0; i < count; i++) {
                 builder.add(readClassName(decoder, classNameMap));
             }
@@ -196,12 +204,15 @@ public class ClassSetAnalysisData {
             }
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
+        private String readClassName(Decoder decoder, List<String> classNameMap) throws IOException {
             int id = decoder.readSmallInt();
             if (id == 0) {
                 id = decoder.readSmallInt();
+                if (id != classNameMap.size()) {
+                    throw new IllegalStateException("Unexpected class name id " + id + ", expected " + classNameMap.size() + ".");
+                }
                 String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
+                classNameMap.add(className);
                 return className;
             }
             return classNameMap.get(id);
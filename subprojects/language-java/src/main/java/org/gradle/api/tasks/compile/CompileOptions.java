@@ -369,6 +369,7 @@ public class CompileOptions extends AbstractOptions {
 
     /**
      * Configure the java compilation to be incremental (e.g. compiles only those java classes that were changed or that are dependencies to the changed classes).
+     * Groovy compilation is only incremental when this is explicitly enabled for the Groovy compile task.
      */
     public CompileOptions setIncremental(boolean incremental) {
         this.incremental = incremental;
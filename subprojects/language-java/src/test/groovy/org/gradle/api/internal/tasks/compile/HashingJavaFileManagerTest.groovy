@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hashing
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaFileObject
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import javax.tools.ToolProvider
+
+class HashingJavaFileManagerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def "records the hashes of the class files written by the compiler"() {
+        def source = temporaryFolder.file("src/Foo.java") << "class Foo { class Bar {} }"
+        def classes = temporaryFolder.createDir("classes")
+        def compiler = ToolProvider.systemJavaCompiler
+        def standardFileManager = compiler.getStandardFileManager(null, null, null)
+        Map<File, HashCode> hashes = [:]
+
+        when:
+        def success = compiler.getTask(null, new HashingJavaFileManager(standardFileManager, hashes), null, ["-d", classes.absolutePath], null, standardFileManager.getJavaFileObjects(source)).call()
+        standardFileManager.close()
+
+        then:
+        success
+        hashes.keySet() == [classes.file("Foo.class"), classes.file('Foo$Bar.class')] as Set
+        hashes.every { file, hash -> hash == Hashing.hashBytes(file.bytes) }
+    }
+
+    def "does not hash outputs other than class files"() {
+        def standardFileManager = Mock(StandardJavaFileManager)
+        def sourceOutput = Stub(JavaFileObject)
+        def fileManager = new HashingJavaFileManager(standardFileManager, [:])
+
+        when:
+        def output = fileManager.getJavaFileForOutput(StandardLocation.SOURCE_OUTPUT, "Foo", JavaFileObject.Kind.SOURCE, null)
+
+        then:
+        1 * standardFileManager.getJavaFileForOutput(StandardLocation.SOURCE_OUTPUT, "Foo", JavaFileObject.Kind.SOURCE, null) >> sourceOutput
+        output.is(sourceOutput)
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import java.nio.charset.Charset
+
+class JdkFileManagerPoolTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def compiler = Mock(JavaCompiler)
+    def pool = new JdkFileManagerPool(true)
+    def jar = temporaryFolder.file("lib.jar").createFile()
+
+    def "reuses file manager after compilation has finished"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def lease = pool.acquire(compiler, null, [], [jar])
+        lease.compilationFinished()
+        lease.close()
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.flush()
+        0 * fileManager.close()
+
+        when:
+        lease = pool.acquire(compiler, null, [], [jar])
+
+        then:
+        lease.fileManager == fileManager
+        0 * compiler.getStandardFileManager(_, _, _)
+        1 * fileManager.setLocation(StandardLocation.CLASS_PATH, null)
+    }
+
+    def "does not reuse file manager when compilation did not finish"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        pool.acquire(compiler, null, [], [jar]).close()
+        pool.acquire(compiler, null, [], [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+    }
+
+    def "does not reuse file manager with a different encoding"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def utf8 = Charset.forName("UTF-8")
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        finished(pool.acquire(compiler, null, [], [jar]))
+
+        when:
+        pool.acquire(compiler, utf8, [], [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, utf8) >> Mock(StandardJavaFileManager)
+    }
+
+    def "discards file manager when a jar on the class path has changed"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherFileManager = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager, otherFileManager]
+        finished(pool.acquire(compiler, null, [], [jar]))
+
+        when:
+        jar << "changed"
+        def lease = pool.acquire(compiler, null, [], [jar])
+
+        then:
+        lease.fileManager == otherFileManager
+        1 * fileManager.close()
+    }
+
+    def "does not reuse file managers for compilations that change the platform class path"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        finished(pool.acquire(compiler, null, ["--release", "8"], [jar]))
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+        0 * fileManager.flush()
+    }
+
+    def "does not reuse file managers when disabled"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        pool = new JdkFileManagerPool(false)
+
+        when:
+        finished(pool.acquire(compiler, null, [], [jar]))
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+    }
+
+    private static void finished(JdkFileManagerPool.Lease lease) {
+        lease.compilationFinished()
+        lease.close()
+    }
+}
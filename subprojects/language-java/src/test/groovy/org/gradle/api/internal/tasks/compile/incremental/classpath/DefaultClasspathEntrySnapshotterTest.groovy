@@ -18,8 +18,12 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
+import it.unimi.dsi.fastutil.ints.IntSets
 import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.changedetection.state.AbiExtractingClasspathResourceHasher
+import org.gradle.api.internal.changedetection.state.ResourceHasher
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.FileOperations
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
@@ -27,11 +31,18 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.StreamHasher
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 import spock.lang.Subject
+import spock.lang.Unroll
+
+import java.util.jar.JarOutputStream
+import java.util.zip.ZipEntry
 
 @UsesNativeServices
 class DefaultClasspathEntrySnapshotterTest extends Specification {
@@ -42,7 +53,8 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
     def streamHasher = Mock(StreamHasher)
     def classDependenciesAnalyzer = Mock(ClassDependenciesAnalyzer)
     def fileOperations = Mock(FileOperations)
-    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, new AbiExtractingClasspathResourceHasher(), buildOperationExecutor)
 
     def "creates snapshot for an empty entry"() {
         expect:
@@ -87,4 +99,154 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    @Unroll
+    def "records the same hash for classes that only differ in #difference"() {
+        def entry = temp.createDir("foo")
+        def f1 = entry.file("Foo.class")
+
+        when:
+        f1.bytes = classBytes(0, false)
+        def snapshot1 = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+        f1.bytes = classBytes(returnValue, withPrivateMethod)
+        def snapshot2 = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        2 * fileOperations.fileTree(entry) >> Stub(ConfigurableFileTree) {
+            visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        }
+        2 * fileHasher.hash(_) >> HashCode.fromInt(1)
+        2 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+
+        and:
+        snapshot1.hashes["Foo"] != HashCode.fromInt(1)
+        snapshot1.hashes == snapshot2.hashes
+
+        where:
+        difference            | returnValue | withPrivateMethod
+        "method bodies"       | 1           | false
+        "private methods"     | 0           | true
+    }
+
+    def "records a different hash for classes with a different ABI"() {
+        def entry = temp.createDir("foo")
+        def f1 = entry.file("Foo.class")
+
+        when:
+        f1.bytes = classBytes(0, false)
+        def snapshot1 = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+        f1.bytes = classBytes(0, false, "bar")
+        def snapshot2 = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        2 * fileOperations.fileTree(entry) >> Stub(ConfigurableFileTree) {
+            visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        }
+        2 * fileHasher.hash(_) >> HashCode.fromInt(1)
+        2 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+
+        and:
+        snapshot1.hashes["Foo"] != snapshot2.hashes["Foo"]
+    }
+
+    def "records the class file hash when the ABI is not hashed"() {
+        def entry = temp.createDir("foo")
+        def f1 = entry.file("Foo.class")
+        f1.bytes = classBytes(0, false)
+        def snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, null, buildOperationExecutor)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        1 * fileOperations.fileTree(entry) >> Stub(ConfigurableFileTree) {
+            visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        }
+        1 * fileHasher.hash(_) >> HashCode.fromInt(1)
+        1 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+
+        and:
+        snapshot.hashes == ["Foo": HashCode.fromInt(1)]
+    }
+
+    def "hashes the ABI of classes in directories by their class file hash"() {
+        def entry = temp.createDir("foo")
+        def f1 = entry.createFile("Foo.class")
+        def abiHasher = Mock(ResourceHasher)
+        def snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, abiHasher, buildOperationExecutor)
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        1 * fileOperations.fileTree(entry) >> Stub(ConfigurableFileTree) {
+            visit(_) >> { FileVisitor visitor -> visitor.visitFile(new DefaultFileVisitDetails(f1, null, null)) }
+        }
+        1 * fileHasher.hash(_) >> HashCode.fromInt(1)
+        1 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> Stub(ClassAnalysis) {
+            getClassName() >> "Foo"
+        }
+        1 * abiHasher.hash({ it.absolutePath == f1.absolutePath && it.hash == HashCode.fromInt(1) }) >> HashCode.fromInt(2)
+
+        and:
+        snapshot.hashes == ["Foo": HashCode.fromInt(2)]
+    }
+
+    def "analyzes the classes of large entries in batches and merges them in order"() {
+        def jar = temp.file("lib.jar")
+        jar.withOutputStream { outputStream ->
+            def jarOutput = new JarOutputStream(outputStream)
+            jarOutput.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"))
+            (0..1000).each {
+                jarOutput.putNextEntry(new ZipEntry(String.format("com/C%04d.class", it)))
+                jarOutput.write(it)
+            }
+            jarOutput.close()
+        }
+        def analyzed = []
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        1001 * streamHasher.hash(_) >> { InputStream input -> HashCode.fromInt(input.read()) }
+        1001 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> { HashCode hash, FileTreeElement element ->
+            analyzed << element.path
+            new ClassAnalysis("com.${element.name - '.class'}", [] as Set, false, IntSets.EMPTY_SET, [] as Set)
+        }
+        0 * _._
+
+        and:
+        buildOperationExecutor.operations*.displayName == (1..3).collect { "Analyze classes in $jar".toString() }
+        analyzed.size() == 1001
+        snapshot.hashes.size() == 1001
+        snapshot.hashes["com.C0000"] == HashCode.fromInt(0)
+        snapshot.hashes["com.C1000"] == HashCode.fromInt(1000 & 0xFF)
+    }
+
+    private static byte[] classBytes(int returnValue, boolean withPrivateMethod, String methodName = "foo") {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Foo", null, "java/lang/Object", null)
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC, methodName, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(Integer.valueOf(returnValue))
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(0, 0)
+        method.visitEnd()
+        if (withPrivateMethod) {
+            def privateMethod = writer.visitMethod(Opcodes.ACC_PRIVATE, "bar", "()V", null, null)
+            privateMethod.visitCode()
+            privateMethod.visitInsn(Opcodes.RETURN)
+            privateMethod.visitMaxs(0, 0)
+            privateMethod.visitEnd()
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
 }
@@ -172,6 +172,17 @@ class ClassSetAnalysisTest extends Specification {
         deps.dependentClasses == ["DependsOnAny", "B", "C"] as Set
     }
 
+    def "includes dependents of generated aggregating types for each changed class"() {
+        def a = analysis([
+            "A": dependents("B"), "B": empty(), "C": empty(), "Aggregated" : dependents("D"), "D": dependents("E"), "E": empty()
+        ], [:], [:], empty(), dependents("Aggregated") )
+
+        expect:
+        a.getRelevantDependents("A", IntSets.EMPTY_SET).dependentClasses == ["Aggregated", "B", "D", "E"] as Set
+        a.getRelevantDependents("C", IntSets.EMPTY_SET).dependentClasses == ["Aggregated", "D", "E"] as Set
+        a.getRelevantDependents("D", IntSets.EMPTY_SET).dependentClasses == ["Aggregated", "E"] as Set
+    }
+
     def "knows when any of the input classes is a dependency to all"() {
         def a = analysis([
             "A": dependents("B"), "B": dependents(),
@@ -204,6 +215,50 @@ class ClassSetAnalysisTest extends Specification {
         a.isDependencyToAll("DoesNotMatter")
     }
 
+    def "partitions classes into batches in dependency order"() {
+        def a = analysis([
+            "Base": dependents("Service", "Model"),
+            "Model": dependents("Service"),
+            "Service": dependents("Client"),
+            "Client": dependents("Service", "App"),
+            "App": dependents(),
+            "Util": dependents(),
+        ])
+
+        expect:
+        a.compilationBatches == [["Util"], ["Base"], ["Model"], ["Service", "Client"], ["App"]].collect { it as Set }
+    }
+
+    def "keeps nested classes with their top level class when partitioning"() {
+        def a = analysis([
+            "A": dependents('B$Inner'),
+            'B$Inner': dependents("C"),
+            "B": dependents(),
+            "C": dependents('B'),
+        ])
+
+        expect:
+        a.compilationBatches == [["A"], ["B", "C"]].collect { it as Set }
+    }
+
+    def "does not partition classes when a class is a dependency to all"() {
+        def a = analysis([
+            "A": dependents("B"),
+            "B": dependents(),
+            "C": dependentSet(true, []),
+        ])
+
+        expect:
+        a.compilationBatches == [["A", "B", "C"] as Set]
+    }
+
+    def "does not partition classes when a full rebuild cause is given"() {
+        def a = analysis(["A": dependents("B"), "B": dependents()], [:], [:], empty(), empty(), "Some cause")
+
+        expect:
+        a.compilationBatches == [["A", "B"] as Set]
+    }
+
     private static DependentsSet dependentSet(boolean dependencyToAll, Collection<String> dependentClasses) {
         dependencyToAll ? DependentsSet.dependencyToAll() : dependents(dependentClasses as Set)
     }
@@ -59,6 +59,12 @@ abstract class AbstractCompilerContinuousIntegrationTest extends Java7RequiringC
                     assert services.get(WorkerDaemonClientsManager).allClients.size() == 0
                 }
             }
+
+            task verifyDaemonsKept {
+                doLast {
+                    assert services.get(WorkerDaemonClientsManager).allClients.size() > 0
+                }
+            }
         """
 
         when:
@@ -86,6 +92,10 @@ abstract class AbstractCompilerContinuousIntegrationTest extends Java7RequiringC
         cancelsAndExits()
 
         and:
-        succeeds("verifyNoDaemons")
+        succeeds(compilerDaemonsKeptAcrossBuilds ? "verifyDaemonsKept" : "verifyNoDaemons")
+    }
+
+    boolean isCompilerDaemonsKeptAcrossBuilds() {
+        false
     }
 }
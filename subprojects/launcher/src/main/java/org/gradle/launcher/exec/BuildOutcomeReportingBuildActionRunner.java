@@ -18,20 +18,25 @@ package org.gradle.launcher.exec;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.tasks.execution.statistics.TaskExecutionStatisticsEventAdapter;
+import org.gradle.api.internal.tasks.execution.statistics.TaskResourceUsageCollector;
 import org.gradle.api.logging.Logging;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.buildevents.BuildLogger;
 import org.gradle.internal.buildevents.BuildStartedTime;
 import org.gradle.internal.buildevents.TaskExecutionStatisticsReporter;
+import org.gradle.internal.buildevents.TaskResourceUsageReporter;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.invocation.BuildController;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
+import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.time.Clock;
 
 public class BuildOutcomeReportingBuildActionRunner implements BuildActionRunner {
+    private static final int REPORTED_TASK_RESOURCE_USAGES = 10;
+
     private final BuildActionRunner delegate;
     private final StyledTextOutputFactory styledTextOutputFactory;
 
@@ -50,15 +55,24 @@ public class BuildOutcomeReportingBuildActionRunner implements BuildActionRunner
         ListenerManager listenerManager = services.get(ListenerManager.class);
         TaskExecutionStatisticsEventAdapter taskStatisticsCollector = new TaskExecutionStatisticsEventAdapter();
         listenerManager.addListener(taskStatisticsCollector);
+        BuildOperationListenerManager buildOperationListenerManager = services.get(BuildOperationListenerManager.class);
+        TaskResourceUsageCollector taskResourceUsageCollector = new TaskResourceUsageCollector();
+        buildOperationListenerManager.addListener(taskResourceUsageCollector);
 
         BuildLogger buildLogger = new BuildLogger(Logging.getLogger(BuildLogger.class), styledTextOutputFactory, startParameter, buildRequestMetaData, buildStartedTime, clock);
         // Register as a 'logger' to support this being replaced by build logic.
         buildController.getGradle().useLogger(buildLogger);
 
-        Result result = delegate.run(action, buildController);
+        Result result;
+        try {
+            result = delegate.run(action, buildController);
+        } finally {
+            buildOperationListenerManager.removeListener(taskResourceUsageCollector);
+        }
 
         buildLogger.logResult(result.getBuildFailure());
         new TaskExecutionStatisticsReporter(styledTextOutputFactory).buildFinished(taskStatisticsCollector.getStatistics());
+        new TaskResourceUsageReporter(styledTextOutputFactory).buildFinished(taskResourceUsageCollector.getMostExpensiveTasks(REPORTED_TASK_RESOURCE_USAGES));
         return result;
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.regression.java
+
+import org.gradle.performance.AbstractCrossVersionPerformanceTest
+import org.gradle.performance.mutator.ApplyAbiChangeToJavaSourceFileMutator
+import org.gradle.performance.mutator.ApplyNonAbiChangeToJavaSourceFileMutator
+import spock.lang.Unroll
+
+import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT
+import static org.gradle.performance.generator.JavaTestProject.MEDIUM_JAVA_MULTI_PROJECT
+
+class JavaABIAndNonABIChangePerformanceTest extends AbstractCrossVersionPerformanceTest {
+
+    @Unroll
+    def "assemble for abi change and non-abi change to another class of the same project on #testProject"() {
+        given:
+        def abiChangeFile = testProject.config.fileToChangeByScenario['assemble']
+        runner.testProject = testProject
+        runner.gradleOpts = ["-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}"]
+        runner.tasksToRun = ['assemble']
+        runner.addBuildExperimentListener(new ApplyAbiChangeToJavaSourceFileMutator(abiChangeFile))
+        // Downstream projects should only recompile the classes that use the class with the ABI change
+        runner.addBuildExperimentListener(new ApplyNonAbiChangeToJavaSourceFileMutator(abiChangeFile.replace('Production0.java', 'Production1.java')))
+        runner.targetVersions = ["5.2-20181218000039+0000"]
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+
+        where:
+        testProject << [MEDIUM_JAVA_MULTI_PROJECT, LARGE_JAVA_MULTI_PROJECT]
+    }
+}
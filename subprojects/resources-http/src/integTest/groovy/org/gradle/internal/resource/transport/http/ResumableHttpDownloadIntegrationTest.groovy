@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.gradle.testing.internal.util.Specification
+import org.junit.Rule
+import org.mortbay.jetty.HttpConnection
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+class ResumableHttpDownloadIntegrationTest extends Specification {
+    @Rule
+    HttpServer httpServer = new HttpServer()
+    HttpSettings settings = DefaultHttpSettings.builder()
+        .withAuthenticationSettings([])
+        .withSslContextFactory(new DefaultSslContextFactory())
+        .build()
+    HttpClientHelper client = new HttpClientHelper(settings)
+    HttpResourceAccessor accessor = new HttpResourceAccessor(client)
+    byte[] original = content(20000, 1)
+    byte[] changed = content(20000, 2)
+
+    def setup() {
+        httpServer.start()
+    }
+
+    def cleanup() {
+        client.close()
+    }
+
+    def "resumes a download when the connection is dropped part way through the body"() {
+        def dropped = new DropConnectionAction(original, '"v1"', 8000)
+        def resumed = new RangeAction(original, '"v1"')
+        httpServer.expect("/file.jar", ['GET'], dropped)
+        httpServer.expect("/file.jar", ['GET'], resumed)
+
+        when:
+        def bytes = download()
+
+        then:
+        bytes == original
+        resumed.range == "bytes=8000-"
+        resumed.ifRange == '"v1"'
+        resumed.status == 206
+    }
+
+    def "does not stitch content together when the resource changes while the download is resumed"() {
+        def dropped = new DropConnectionAction(original, '"v1"', 8000)
+        def resumed = new RangeAction(changed, '"v2"')
+        def restarted = new RangeAction(changed, '"v2"')
+        httpServer.expect("/file.jar", ['GET'], dropped)
+        httpServer.expect("/file.jar", ['GET'], resumed)
+        httpServer.expect("/file.jar", ['GET'], restarted)
+
+        when:
+        download()
+
+        then:
+        thrown(IOException)
+        resumed.range == "bytes=8000-"
+        resumed.ifRange == '"v1"'
+        resumed.status == 200
+
+        when:
+        def bytes = download()
+
+        then:
+        bytes == changed
+        restarted.range == null
+        restarted.ifRange == null
+        restarted.status == 200
+    }
+
+    private byte[] download() {
+        def resource = accessor.openResource(new URI("${httpServer.address}/file.jar"), false)
+        try {
+            return resource.openStream().withStream { it.bytes }
+        } finally {
+            resource.close()
+        }
+    }
+
+    private static byte[] content(int length, long seed) {
+        def bytes = new byte[length]
+        new Random(seed).nextBytes(bytes)
+        return bytes
+    }
+}
+
+/**
+ * Advertises the complete content, but drops the connection after sending the given number of bytes.
+ */
+class DropConnectionAction extends HttpServer.ActionSupport {
+    private final byte[] content
+    private final String etag
+    private final int dropAfter
+
+    DropConnectionAction(byte[] content, String etag, int dropAfter) {
+        super("drop the connection after $dropAfter of $content.length bytes")
+        this.content = content
+        this.etag = etag
+        this.dropAfter = dropAfter
+    }
+
+    @Override
+    void handle(HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader("Accept-Ranges", "bytes")
+        response.setHeader("ETag", etag)
+        response.setContentLength(content.length)
+        response.outputStream.write(content, 0, dropAfter)
+        response.flushBuffer()
+        HttpConnection.currentConnection.endPoint.close()
+    }
+}
+
+/**
+ * Serves the content, honouring 'Range' only when 'If-Range' matches the current entity tag.
+ */
+class RangeAction extends HttpServer.ActionSupport {
+    private final byte[] content
+    private final String etag
+    String range
+    String ifRange
+    int status
+
+    RangeAction(byte[] content, String etag) {
+        super("return the content with entity tag $etag, honouring range requests")
+        this.content = content
+        this.etag = etag
+    }
+
+    @Override
+    void handle(HttpServletRequest request, HttpServletResponse response) {
+        range = request.getHeader("Range")
+        ifRange = request.getHeader("If-Range")
+        int offset = 0
+        if (range != null && ifRange == etag) {
+            offset = range.substring("bytes=".length(), range.length() - 1) as int
+            status = HttpServletResponse.SC_PARTIAL_CONTENT
+            response.setHeader("Content-Range", "bytes $offset-${content.length - 1}/$content.length")
+        } else {
+            status = HttpServletResponse.SC_OK
+        }
+        response.status = status
+        response.setHeader("Accept-Ranges", "bytes")
+        response.setHeader("ETag", etag)
+        response.setContentLength(content.length - offset)
+        response.outputStream.write(content, offset, content.length - offset)
+    }
+}
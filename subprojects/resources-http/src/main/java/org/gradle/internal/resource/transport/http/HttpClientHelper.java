@@ -80,6 +80,17 @@ public class HttpClientHelper implements Closeable {
         return processResponse(performRawGet(source, revalidate));
     }
 
+    /**
+     * Requests the content of the given resource starting at the given offset. The remainder is only sent when the resource
+     * still matches the given validator, otherwise the server responds with the complete content.
+     */
+    HttpClientResponse performRangeGet(String source, long offset, String validator) {
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + offset + "-");
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        return performRequest(request, false);
+    }
+
     public HttpClientResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
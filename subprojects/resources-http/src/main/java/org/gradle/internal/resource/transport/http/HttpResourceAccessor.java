@@ -41,7 +41,7 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
 
         HttpClientResponse response = http.performGet(location, revalidate);
         if (response != null) {
-            return wrapResponse(uri, response);
+            return new ResumableHttpResponseResource(uri, response, http);
         }
 
         return null;
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.gradle.internal.IoActions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Date;
+
+/**
+ * A GET resource whose content can be resumed with a range request when the connection drops part way through the download.
+ *
+ * <p>A resume is only attempted when the server advertises byte range support, the content length is known and the response
+ * carries a strong validator, so that the remainder of the content is guaranteed to belong to the same version of the resource.
+ * Otherwise an interrupted download fails and is started again from the beginning.</p>
+ */
+class ResumableHttpResponseResource extends HttpResponseResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableHttpResponseResource.class);
+    static final int MAX_RESUME_ATTEMPTS = 3;
+
+    private final HttpClientHelper http;
+    private final HttpClientResponse response;
+    private HttpClientResponse resumedResponse;
+
+    ResumableHttpResponseResource(URI source, HttpClientResponse response, HttpClientHelper http) {
+        super("GET", source, response);
+        this.response = response;
+        this.http = http;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        InputStream content = super.openStream();
+        long contentLength = getContentLength();
+        String validator = getValidator();
+        if (contentLength <= 0 || validator == null || !"bytes".equalsIgnoreCase(response.getHeader(HttpHeaders.ACCEPT_RANGES))) {
+            return content;
+        }
+        return new ResumingInputStream(content, contentLength, validator);
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            if (resumedResponse != null) {
+                resumedResponse.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the value to send as {@code If-Range}, which must be a strong validator (RFC 7233, section 3.2).
+     */
+    @Nullable
+    private String getValidator() {
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        if (lastModified != null && isStrongLastModified(lastModified, response.getHeader(HttpHeaders.DATE))) {
+            return lastModified;
+        }
+        return null;
+    }
+
+    /**
+     * A modification date is only a strong validator when it is at least one second older than the date of the response,
+     * as the resource could otherwise have changed again within the same second (RFC 7232, section 2.2.2).
+     */
+    private static boolean isStrongLastModified(String lastModified, @Nullable String date) {
+        if (date == null) {
+            return false;
+        }
+        Date lastModifiedDate = DateUtils.parseDate(lastModified);
+        Date responseDate = DateUtils.parseDate(date);
+        return lastModifiedDate != null && responseDate != null && responseDate.getTime() - lastModifiedDate.getTime() >= 1000;
+    }
+
+    private InputStream resume(long offset, String validator) throws IOException {
+        HttpClientResponse partial = http.performRangeGet(response.getEffectiveUri().toString(), offset, validator);
+        if (partial.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || !startsAt(partial, offset)) {
+            partial.close();
+            return null;
+        }
+        if (resumedResponse != null) {
+            resumedResponse.close();
+        }
+        resumedResponse = partial;
+        return partial.getContent();
+    }
+
+    private static boolean startsAt(HttpClientResponse response, long offset) {
+        // Content-Range: bytes <first>-<last>/<length>
+        String contentRange = response.getHeader(HttpHeaders.CONTENT_RANGE);
+        return contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+    }
+
+    private class ResumingInputStream extends InputStream {
+        private final long contentLength;
+        private final String validator;
+        private InputStream delegate;
+        private long position;
+        private int resumeAttempts;
+
+        ResumingInputStream(InputStream delegate, long contentLength, String validator) {
+            this.delegate = delegate;
+            this.contentLength = contentLength;
+            this.validator = validator;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (true) {
+                try {
+                    int result = delegate.read();
+                    if (result >= 0) {
+                        position++;
+                    }
+                    return result;
+                } catch (IOException e) {
+                    resumeAfter(e);
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                try {
+                    int count = delegate.read(b, off, len);
+                    if (count > 0) {
+                        position += count;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    resumeAfter(e);
+                }
+            }
+        }
+
+        private void resumeAfter(IOException failure) throws IOException {
+            if (position >= contentLength || resumeAttempts >= MAX_RESUME_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                throw failure;
+            }
+            resumeAttempts++;
+            LOGGER.info("Download of {} was interrupted after {} of {} bytes, resuming.", getURI(), position, contentLength);
+            InputStream remainder;
+            try {
+                remainder = resume(position, validator);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not resume download of {}.", getURI(), e);
+                throw failure;
+            }
+            if (remainder == null) {
+                throw failure;
+            }
+            IoActions.closeQuietly(delegate);
+            delegate = remainder;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
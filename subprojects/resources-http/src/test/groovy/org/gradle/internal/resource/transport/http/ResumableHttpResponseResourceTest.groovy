@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpEntity
+import org.apache.http.HttpHeaders
+import org.apache.http.ProtocolVersion
+import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.message.BasicHeader
+import org.apache.http.message.BasicStatusLine
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ResumableHttpResponseResourceTest extends Specification {
+    def uri = new URI("http://somewhere/file.jar")
+    def http = Mock(HttpClientHelper)
+
+    def "resumes an interrupted download from the last received byte"() {
+        def original = response(200, [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ACCEPT_RANGES): "bytes", (HttpHeaders.ETAG): '"abc"'], interruptedAfter("abc"))
+        def remainder = response(206, [(HttpHeaders.CONTENT_RANGE): "bytes 3-5/6"], new ByteArrayInputStream("def".bytes))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        def content = resource.openStream().text
+
+        then:
+        content == "abcdef"
+        1 * http.performRangeGet(uri.toString(), 3, '"abc"') >> remainder
+    }
+
+    def "uses last modified date as validator when the entity tag is weak"() {
+        def original = response(200, [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ACCEPT_RANGES): "bytes", (HttpHeaders.ETAG): 'W/"abc"', (HttpHeaders.LAST_MODIFIED): "Wed, 21 Oct 2015 07:28:00 GMT", (HttpHeaders.DATE): "Wed, 21 Oct 2015 07:28:01 GMT"], interruptedAfter("abc"))
+        def remainder = response(206, [(HttpHeaders.CONTENT_RANGE): "bytes 3-5/6"], new ByteArrayInputStream("def".bytes))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        def content = resource.openStream().text
+
+        then:
+        content == "abcdef"
+        1 * http.performRangeGet(uri.toString(), 3, "Wed, 21 Oct 2015 07:28:00 GMT") >> remainder
+    }
+
+    @Unroll
+    def "does not resume when the last modified date is a weak validator (date: #date)"() {
+        def headers = [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ACCEPT_RANGES): "bytes", (HttpHeaders.LAST_MODIFIED): "Wed, 21 Oct 2015 07:28:00 GMT"]
+        if (date != null) {
+            headers[HttpHeaders.DATE] = date
+        }
+        def original = response(200, headers, interruptedAfter("abc"))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        resource.openStream().text
+
+        then:
+        def e = thrown(IOException)
+        e.message == "connection reset"
+        0 * http._
+
+        where:
+        date << [null, "Wed, 21 Oct 2015 07:28:00 GMT", "not a date"]
+    }
+
+    def "does not resume when the server does not support ranges"() {
+        def original = response(200, [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ETAG): '"abc"'], interruptedAfter("abc"))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        resource.openStream().text
+
+        then:
+        def e = thrown(IOException)
+        e.message == "connection reset"
+        0 * http._
+    }
+
+    def "fails with original failure when the resource has changed in the meantime"() {
+        def original = response(200, [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ACCEPT_RANGES): "bytes", (HttpHeaders.ETAG): '"abc"'], interruptedAfter("abc"))
+        def complete = response(200, [:], new ByteArrayInputStream("xyzxyz".bytes))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        resource.openStream().text
+
+        then:
+        def e = thrown(IOException)
+        e.message == "connection reset"
+        1 * http.performRangeGet(uri.toString(), 3, '"abc"') >> complete
+    }
+
+    def "gives up after a bounded number of attempts"() {
+        def original = response(200, [(HttpHeaders.CONTENT_LENGTH): "6", (HttpHeaders.ACCEPT_RANGES): "bytes", (HttpHeaders.ETAG): '"abc"'], interruptedAfter("abc"))
+        def resource = new ResumableHttpResponseResource(uri, original, http)
+
+        when:
+        resource.openStream().text
+
+        then:
+        def e = thrown(IOException)
+        e.message == "connection reset"
+        ResumableHttpResponseResource.MAX_RESUME_ATTEMPTS * http.performRangeGet(uri.toString(), 3, '"abc"') >> {
+            response(206, [(HttpHeaders.CONTENT_RANGE): "bytes 3-5/6"], interruptedAfter(""))
+        }
+    }
+
+    private HttpClientResponse response(int statusCode, Map<String, String> headers, InputStream content) {
+        def entity = Stub(HttpEntity) {
+            getContent() >> content
+        }
+        def httpResponse = Stub(CloseableHttpResponse) {
+            getStatusLine() >> new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), statusCode, "")
+            getEntity() >> entity
+            getFirstHeader(_) >> { String name -> headers.containsKey(name) ? new BasicHeader(name, headers[name]) : null }
+        }
+        return new HttpClientResponse("GET", uri, httpResponse)
+    }
+
+    private static InputStream interruptedAfter(String text) {
+        def bytes = new ByteArrayInputStream(text.bytes)
+        return new InputStream() {
+            @Override
+            int read() throws IOException {
+                int result = bytes.read()
+                if (result < 0) {
+                    throw new IOException("connection reset")
+                }
+                return result
+            }
+        }
+    }
+}
@@ -83,21 +83,26 @@ public class WorkerDaemonClientsManager implements Stoppable {
 
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
         synchronized (lock) {
+            // Prefer the most frequently used compatible client, as its JIT is the most warmed up
+            WorkerDaemonClient bestCandidate = null;
             Iterator<WorkerDaemonClient> it = clients.iterator();
             while (it.hasNext()) {
                 WorkerDaemonClient candidate = it.next();
                 if (candidate.isCompatibleWith(forkOptions)) {
-                    it.remove();
                     if (candidate.getLogLevel() != currentLogLevel) {
+                        it.remove();
                         // TODO: Send a message to workers to change their log level rather than stopping
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
                         candidate.stop();
-                    } else {
-                        return candidate;
+                    } else if (bestCandidate == null || candidate.getUses() > bestCandidate.getUses()) {
+                        bestCandidate = candidate;
                     }
                 }
             }
-            return null;
+            if (bestCandidate != null) {
+                clients.remove(bestCandidate);
+            }
+            return bestCandidate;
         }
     }
 
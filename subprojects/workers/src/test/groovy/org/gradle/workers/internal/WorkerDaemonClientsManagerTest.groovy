@@ -68,6 +68,17 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         input == [noMatch] //match removed from input
     }
 
+    def "reserves the most frequently used idle client when multiple matches are found"() {
+        def noMatch = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> false; getUses() >> 10 }
+        def match = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getUses() >> 2 }
+        def warmerMatch = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getUses() >> 5 }
+        def input = [noMatch, match, warmerMatch]
+
+        expect:
+        manager.reserveIdleClient(options, input) == warmerMatch
+        input == [noMatch, match]
+    }
+
     def "reserves new client"() {
         def newClient = Stub(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >> newClient